@@ -0,0 +1,112 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Cart;
+import com.example.demo.model.CartItem;
+import com.example.demo.model.Category;
+import com.example.demo.model.Comment;
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderItem;
+import com.example.demo.model.Product;
+import com.example.demo.model.User;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic fixtures shared by the benchmarks. Every builder draws from its own
+ * fixed-seed Random, so two runs (or two branches) measure exactly the same data.
+ */
+final class BenchmarkFixtures {
+    static final long SEED = 42L;
+
+    // Base64 of a 256-bit key, the shape jwt.secret has in every environment
+    static final String JWT_SECRET = "ZGVtby1iZW5jaG1hcmstand0LXNlY3JldC1rZXktMjU2LWJpdHMtbG9uZw==";
+    static final long JWT_EXPIRATION_MS = 86_400_000L;
+
+    private static final String[] BRANDS = {"Lumiere", "Aurora", "Velvet", "Nordic", "Solene"};
+
+    private BenchmarkFixtures() {
+    }
+
+    static User user() {
+        User user = new User();
+        user.setId(7L);
+        user.setFullName("Benchmark User");
+        user.setEmail("benchmark.user@example.com");
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3ZzYQvCq0eKXyZ8XxGzU8eK");
+        user.setRole(User.Role.USER);
+        user.setEmailConfirmation(true);
+        return user;
+    }
+
+    static List<Category> categories() {
+        List<Category> categories = new ArrayList<>();
+        String[] names = {"Skincare", "Makeup", "Fragrance", "Hair"};
+        for (int i = 0; i < names.length; i++) {
+            categories.add(new Category((long) i + 1, names[i], names[i] + " products", null));
+        }
+        return categories;
+    }
+
+    static List<Product> products(int count) {
+        Random random = new Random(SEED);
+        List<Category> categories = categories();
+        User author = user();
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setId((long) i + 1);
+            product.setName("Product " + i + " " + BRANDS[i % BRANDS.length]);
+            product.setDescription("<p>Description for product " + i + " with <b>markup</b> and some filler text.</p>");
+            product.setPrice(BigDecimal.valueOf(500 + random.nextInt(20_000), 2));
+            product.setQuantity(random.nextInt(200));
+            product.setBrand(BRANDS[random.nextInt(BRANDS.length)]);
+            product.setBestseller(random.nextBoolean());
+            product.setNewArrival(random.nextBoolean());
+            product.setCategory(categories.get(i % categories.size()));
+            product.setImages(new ArrayList<>(List.of("https://cdn.example.com/p/" + i + "-a.jpg",
+                    "https://cdn.example.com/p/" + i + "-b.jpg")));
+            List<Comment> comments = new ArrayList<>();
+            for (int c = 0; c < 3; c++) {
+                comments.add(new Comment((long) i * 10 + c, "Comment " + c + " on product " + i, 1 + random.nextInt(5), product, author));
+            }
+            product.setComments(comments);
+            products.add(product);
+        }
+        return products;
+    }
+
+    static Order order(int itemCount) {
+        Order order = new Order();
+        order.setId(1L);
+        order.setUser(user());
+        order.setAddress("1 Benchmark Street");
+        order.setPhoneNumber("+10000000000");
+        order.setStatus(Order.OrderStatus.PREPARING);
+        order.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        List<OrderItem> items = new ArrayList<>();
+        List<Product> products = products(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            Product product = products.get(i);
+            items.add(new OrderItem((long) i + 1, order, product, 1 + i % 3, product.getPrice(), false));
+        }
+        order.setItems(items);
+        return order;
+    }
+
+    static Cart cart(int itemCount) {
+        Cart cart = new Cart();
+        cart.setId(1L);
+        cart.setUser(user());
+        List<CartItem> items = new ArrayList<>();
+        List<Product> products = products(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new CartItem((long) i + 1, cart, products.get(i), 1 + i % 3));
+        }
+        cart.setItems(items);
+        return cart;
+    }
+}
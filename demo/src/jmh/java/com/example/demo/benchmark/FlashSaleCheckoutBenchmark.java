@@ -0,0 +1,92 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.service.StripedStockCounter;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Orders per second for the stock step of a checkout when every buyer wants the same product:
+ * the row-level conditional decrement (one transaction per order, serialized on the row lock)
+ * against the flash-sale path (striped counter plus the write-behind tally). Runs against an
+ * in-memory H2 database, so absolute numbers are optimistic for the row-level path; the ratio
+ * is what to compare.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class FlashSaleCheckoutBenchmark {
+    private static final long HOT_PRODUCT_ID = 1L;
+    private static final int STOCK = Integer.MAX_VALUE;
+
+    private HikariDataSource dataSource;
+    private StripedStockCounter counter;
+    private AtomicLong pendingFlush;
+
+    @Setup
+    public void setUp() throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:flash-sale;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setMaximumPoolSize(16);
+        dataSource = new HikariDataSource(config);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table product (id bigint primary key, quantity integer)");
+            statement.execute("insert into product values (" + HOT_PRODUCT_ID + ", " + STOCK + ")");
+        }
+        counter = new StripedStockCounter(STOCK);
+        pendingFlush = new AtomicLong();
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public boolean rowLevelDecrement() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "update product set quantity = quantity - ? where id = ? and quantity >= ?")) {
+                statement.setInt(1, 1);
+                statement.setLong(2, HOT_PRODUCT_ID);
+                statement.setInt(3, 1);
+                boolean taken = statement.executeUpdate() == 1;
+                connection.commit();
+                return taken;
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean flashSaleCounter() {
+        boolean taken = counter.tryTake(1);
+        if (taken) {
+            pendingFlush.incrementAndGet();
+        }
+        return taken;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.User;
+import com.example.demo.service.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue on login and the verification every authenticated request pays in
+ * JwtAuthenticationFilter. verify checks the same token repeatedly and measures the steady
+ * state, a SHA-256 of the token and a cache lookup; verifyUnseenToken gets a token the service
+ * has never seen on every call and measures the first request of a session: parsing, the HMAC
+ * check and the cache insert.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class JwtServiceBenchmark {
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", BenchmarkFixtures.JWT_SECRET);
+        ReflectionTestUtils.setField(jwtService, "expiration", BenchmarkFixtures.JWT_EXPIRATION_MS);
+        user = BenchmarkFixtures.user();
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public JwtService.VerifiedToken verify() {
+        return jwtService.verify(token);
+    }
+
+    @Benchmark
+    public JwtService.VerifiedToken verifyUnseenToken(UnseenToken unseen) {
+        return jwtService.verify(unseen.token);
+    }
+
+    /** A new token per invocation; the user id varies so no two tokens are equal. */
+    @State(Scope.Thread)
+    public static class UnseenToken {
+        private long nextUserId = 1_000_000L;
+        private String token;
+
+        @Setup(Level.Invocation)
+        public void issue(JwtServiceBenchmark benchmark) {
+            User user = BenchmarkFixtures.user();
+            user.setId(nextUserId++);
+            token = benchmark.jwtService.generateToken(user);
+        }
+    }
+}
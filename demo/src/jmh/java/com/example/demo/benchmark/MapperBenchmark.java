@@ -0,0 +1,84 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.CartDTO;
+import com.example.demo.dto.OrderDTO;
+import com.example.demo.dto.ProductDTO;
+import com.example.demo.mapper.CartMapper;
+import com.example.demo.mapper.CartMapperImpl;
+import com.example.demo.mapper.OrderMapper;
+import com.example.demo.mapper.OrderMapperImpl;
+import com.example.demo.mapper.ProductMapper;
+import com.example.demo.mapper.ProductMapperImpl;
+import com.example.demo.model.Cart;
+import com.example.demo.model.Order;
+import com.example.demo.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Entity to DTO conversions on the read paths: a listing page of products, an order and a cart.
+ * Uses the MapStruct-generated implementations directly; none of these methods touch the
+ * injected repositories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MapperBenchmark {
+    private static final int PAGE_SIZE = 24;
+    private static final int LINE_COUNT = 10;
+
+    private ProductMapper productMapper;
+    private OrderMapper orderMapper;
+    private CartMapper cartMapper;
+
+    private List<Product> products;
+    private Order order;
+    private Cart cart;
+    private ProductDTO productDTO;
+
+    @Setup
+    public void setUp() {
+        productMapper = new ProductMapperImpl();
+        orderMapper = new OrderMapperImpl();
+        cartMapper = new CartMapperImpl();
+        products = BenchmarkFixtures.products(PAGE_SIZE);
+        order = BenchmarkFixtures.order(LINE_COUNT);
+        cart = BenchmarkFixtures.cart(LINE_COUNT);
+        productDTO = productMapper.toDTO(products.get(0));
+    }
+
+    @Benchmark
+    public List<ProductDTO> productPageToDTO() {
+        return products.stream().map(productMapper::toDTO).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public Product productToEntity() {
+        return productMapper.toEntity(productDTO);
+    }
+
+    @Benchmark
+    public OrderDTO orderToDTO() {
+        return orderMapper.toDTO(order);
+    }
+
+    @Benchmark
+    public CartDTO cartToDTO() {
+        return cartMapper.toDTO(cart);
+    }
+}
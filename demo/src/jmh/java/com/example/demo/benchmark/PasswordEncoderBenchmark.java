@@ -0,0 +1,65 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The password encoder as SecurityConfig builds it: BCrypt at password-hashing.bcrypt-strength,
+ * run on the bounded hashing pool, so each call includes the hop to a pool thread and back.
+ * Measures the cost of a registration or password change (encode) and of a login (matches);
+ * pass -p strength=N to match a deployment's configured cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class PasswordEncoderBenchmark {
+    private static final String PASSWORD = "Benchmark-Password-123";
+    // password-hashing.threads and password-hashing.queue-capacity defaults
+    private static final int THREADS = 4;
+    private static final int QUEUE_CAPACITY = 32;
+
+    @Param({"10"})
+    private int strength;
+
+    private BoundedPasswordEncoder passwordEncoder;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        passwordEncoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), THREADS, QUEUE_CAPACITY, new SimpleMeterRegistry());
+        hash = passwordEncoder.encode(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        passwordEncoder.destroy();
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches(PASSWORD, hash);
+    }
+}
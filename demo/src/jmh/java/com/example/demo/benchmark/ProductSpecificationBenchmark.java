@@ -0,0 +1,93 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Product;
+import com.example.demo.specification.ProductCursor;
+import com.example.demo.specification.ProductSpecification;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Criteria predicate building for the product listing. Hibernate is bootstrapped once against
+ * an in-memory H2 schema only to obtain a real CriteriaBuilder; no SQL is executed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ProductSpecificationBenchmark {
+    private final ProductSpecification productSpecification = new ProductSpecification();
+
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private CriteriaBuilder criteriaBuilder;
+    private ProductCursor cursor;
+
+    @Setup
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.example.demo.model");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "none"));
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+        entityManager = entityManagerFactory.createEntityManager();
+        criteriaBuilder = entityManager.getCriteriaBuilder();
+        cursor = new ProductCursor("price", Sort.Direction.ASC, 1200L, new BigDecimal("49.90"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        entityManagerFactory.close();
+    }
+
+    @Benchmark
+    public Predicate unfiltered() {
+        return toPredicate(productSpecification.getProducts(null, null, null, null, null, null, null));
+    }
+
+    @Benchmark
+    public Predicate allFilters() {
+        return toPredicate(productSpecification.getProducts("serum", new BigDecimal("10"), new BigDecimal("100"),
+                "Lumiere", true, false, 2L));
+    }
+
+    @Benchmark
+    public Predicate filtersWithCursor() {
+        return toPredicate(productSpecification.getProducts(null, new BigDecimal("10"), null, null, null, null, 2L)
+                .and(productSpecification.after(cursor)));
+    }
+
+    private Predicate toPredicate(org.springframework.data.jpa.domain.Specification<Product> specification) {
+        CriteriaQuery<Product> query = criteriaBuilder.createQuery(Product.class);
+        Root<Product> root = query.from(Product.class);
+        return specification.toPredicate(root, query, criteriaBuilder);
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.EcomercebasicApplication;
+import com.example.demo.exception.InsufficientStockException;
+import com.example.demo.model.Category;
+import com.example.demo.model.Product;
+import com.example.demo.model.User;
+import com.example.demo.repositories.CategoryRepository;
+import com.example.demo.repositories.ProductRepository;
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.service.CartService;
+import com.example.demo.service.FlashSaleService;
+import com.example.demo.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Offline load harness for the checkout path. Boots the whole application against H2 in
+ * PostgreSQL mode, seeds a few scarce products, then has N concurrent users repeatedly add
+ * to cart and place an order through CartService and OrderService. Reports throughput,
+ * latency percentiles, outcomes, deadlocks and - the number that must stay at zero -
+ * units sold beyond stock.
+ * <p>
+ * Run with {@code mvn -Pload-test verify}; tune it with -Dloadtest.users, -Dloadtest.iterations,
+ * -Dloadtest.products, -Dloadtest.stock, -Dloadtest.items-per-order and -Dloadtest.flash-sale.
+ * The report is printed and written to target/loadtest-result.json.
+ */
+public final class CheckoutLoadHarness {
+    private static final long SEED = 42L;
+    private static final Set<String> LOCK_SQL_STATES = Set.of("40001", "40P01", "HYT00");
+
+    private final int users = Integer.getInteger("loadtest.users", 64);
+    private final int iterations = Integer.getInteger("loadtest.iterations", 10);
+    private final int productCount = Integer.getInteger("loadtest.products", 4);
+    private final int stock = Integer.getInteger("loadtest.stock", 200);
+    private final int itemsPerOrder = Integer.getInteger("loadtest.items-per-order", 2);
+    private final boolean flashSale = Boolean.getBoolean("loadtest.flash-sale");
+    private final String output = System.getProperty("loadtest.output", "target/loadtest-result.json");
+
+    private final AtomicLong orders = new AtomicLong();
+    private final AtomicLong outOfStock = new AtomicLong();
+    private final AtomicLong deadlocks = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    private CheckoutLoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        new CheckoutLoadHarness().run();
+    }
+
+    private void run() throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(EcomercebasicApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                        "--spring.datasource.hikari.maximum-pool-size=" + Math.max(10, users),
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        // Nothing listens on the test SMTP host; keep queued emails where they are
+                        "--email-outbox.poll-interval-ms=3600000",
+                        "--logging.level.root=WARN");
+        try {
+            List<Long> productIds = seedProducts(context);
+            List<Long> userIds = seedUsers(context);
+            if (flashSale) {
+                FlashSaleService flashSaleService = context.getBean(FlashSaleService.class);
+                productIds.forEach(flashSaleService::activate);
+            }
+
+            long[][] latencies = new long[users][];
+            long started = System.nanoTime();
+            drive(context, userIds, productIds, latencies);
+            long elapsed = System.nanoTime() - started;
+
+            if (flashSale) {
+                context.getBean(FlashSaleService.class).flush();
+            }
+            report(context, productIds, latencies, elapsed);
+        } finally {
+            context.close();
+        }
+    }
+
+    private void drive(ConfigurableApplicationContext context, List<Long> userIds, List<Long> productIds, long[][] latencies) throws Exception {
+        CartService cartService = context.getBean(CartService.class);
+        OrderService orderService = context.getBean(OrderService.class);
+        ExecutorService executor = Executors.newFixedThreadPool(users);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int u = 0; u < users; u++) {
+            int index = u;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(SEED + index);
+                long userId = userIds.get(index);
+                long[] timings = new long[iterations];
+                start.await();
+                for (int i = 0; i < iterations; i++) {
+                    long begin = System.nanoTime();
+                    checkout(cartService, orderService, userId, productIds, random);
+                    timings[i] = System.nanoTime() - begin;
+                }
+                latencies[index] = timings;
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    /** One add-to-cart and checkout round; every failure is classified, never thrown. */
+    private void checkout(CartService cartService, OrderService orderService, long userId, List<Long> productIds, Random random) {
+        try {
+            for (int item = 0; item < itemsPerOrder; item++) {
+                long productId = productIds.get(random.nextInt(productIds.size()));
+                cartService.addToCart(userId, productId, 1 + random.nextInt(2));
+            }
+            orderService.createOrder(userId, "1 Load Test Street", "0600000000");
+            orders.incrementAndGet();
+        } catch (RuntimeException e) {
+            classify(e);
+            try {
+                // Start the next round with an empty cart and no holds.
+                cartService.clearCart(userId);
+            } catch (RuntimeException cleanup) {
+                classify(cleanup);
+            }
+        }
+    }
+
+    private void classify(RuntimeException e) {
+        if (e instanceof InsufficientStockException) {
+            outOfStock.incrementAndGet();
+        } else if (isLockFailure(e)) {
+            deadlocks.incrementAndGet();
+        } else {
+            errors.incrementAndGet();
+            System.err.println("Checkout failed: " + e);
+        }
+    }
+
+    private static boolean isLockFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PessimisticLockingFailureException) {
+                return true;
+            }
+            if (cause instanceof SQLException sql && sql.getSQLState() != null && LOCK_SQL_STATES.contains(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Long> seedProducts(ConfigurableApplicationContext context) {
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        Category category = categoryRepository.save(new Category(null, "Load test", "Load test products", null));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < productCount; i++) {
+            Product product = new Product();
+            product.setName("Load test product " + (i + 1));
+            product.setDescription("Scarce product for the checkout load test");
+            product.setPrice(new BigDecimal("19.90"));
+            product.setQuantity(stock);
+            product.setBrand("Load");
+            product.setCategory(category);
+            ids.add(productRepository.save(product).getId());
+        }
+        return ids;
+    }
+
+    private List<Long> seedUsers(ConfigurableApplicationContext context) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            User user = new User();
+            user.setFullName("Load User " + i);
+            user.setEmail("load.user." + i + "@example.com");
+            user.setPassword("not-used");
+            user.setRole(User.Role.USER);
+            user.setEmailConfirmation(true);
+            ids.add(userRepository.save(user).getId());
+        }
+        return ids;
+    }
+
+    private void report(ConfigurableApplicationContext context, List<Long> productIds, long[][] latencies, long elapsedNanos) throws IOException {
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        long oversoldUnits = 0;
+        int inconsistentProducts = 0;
+        for (Long productId : productIds) {
+            Integer remaining = jdbcTemplate.queryForObject("select quantity from product where id = ?", Integer.class, productId);
+            Long sold = jdbcTemplate.queryForObject(
+                    "select coalesce(sum(i.quantity), 0) from order_item i join orders o on o.id = i.order_id " +
+                    "where i.product_id = ? and o.status <> 'CANCELED'", Long.class, productId);
+            oversoldUnits += Math.max(0, sold - stock);
+            if (remaining == null || remaining < 0 || stock - sold != remaining) {
+                inconsistentProducts++;
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("users", users);
+        result.put("iterationsPerUser", iterations);
+        result.put("products", productCount);
+        result.put("stockPerProduct", stock);
+        result.put("flashSale", flashSale);
+        result.put("elapsedSeconds", elapsedNanos / 1e9);
+        result.put("checkoutsPerSecond", all.length / (elapsedNanos / 1e9));
+        result.put("ordersPerSecond", orders.get() / (elapsedNanos / 1e9));
+        result.put("orders", orders.get());
+        result.put("outOfStock", outOfStock.get());
+        result.put("deadlocks", deadlocks.get());
+        result.put("errors", errors.get());
+        result.put("latencyMsP50", percentile(all, 50));
+        result.put("latencyMsP90", percentile(all, 90));
+        result.put("latencyMsP99", percentile(all, 99));
+        result.put("latencyMsMax", all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+        result.put("oversoldUnits", oversoldUnits);
+        result.put("inconsistentProducts", inconsistentProducts);
+
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class).copy().enable(SerializationFeature.INDENT_OUTPUT);
+        File file = new File(output);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        objectMapper.writeValue(file, result);
+        System.out.println(objectMapper.writeValueAsString(result));
+        if (oversoldUnits > 0 || inconsistentProducts > 0) {
+            System.err.println("Stock invariant violated: " + oversoldUnits + " units oversold, " + inconsistentProducts + " products inconsistent");
+        }
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
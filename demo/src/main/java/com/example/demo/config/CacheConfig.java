@@ -0,0 +1,59 @@
+package com.example.demo.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * In-process caches for the public catalog reads.
+ * Every cache is bounded by size and TTL and records stats, so the actuator
+ * exposes cache.gets (hit/miss), cache.evictions and cache.size per cache.
+ * The manager is transaction-aware: evictions issued inside a write transaction
+ * are applied after commit, so a concurrent reader cannot re-cache the old row.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String PRODUCTS = "products";
+    public static final String PRODUCT_LISTS = "productLists";
+    public static final String PRODUCT_FACETS = "productFacets";
+
+    @Value("${cache.products.max-size:10000}")
+    private long productsMaxSize;
+    @Value("${cache.products.ttl:10m}")
+    private Duration productsTtl;
+
+    @Value("${cache.product-lists.max-size:16}")
+    private long productListsMaxSize;
+    @Value("${cache.product-lists.ttl:5m}")
+    private Duration productListsTtl;
+
+    @Value("${cache.product-facets.max-size:1000}")
+    private long productFacetsMaxSize;
+    @Value("${cache.product-facets.ttl:5m}")
+    private Duration productFacetsTtl;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(PRODUCTS, boundedCache(productsMaxSize, productsTtl));
+        cacheManager.registerCustomCache(PRODUCT_LISTS, boundedCache(productListsMaxSize, productListsTtl));
+        cacheManager.registerCustomCache(PRODUCT_FACETS, boundedCache(productFacetsMaxSize, productFacetsTtl));
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> boundedCache(long maxSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+}
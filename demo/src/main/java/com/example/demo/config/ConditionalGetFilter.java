@@ -0,0 +1,112 @@
+package com.example.demo.config;
+
+import com.example.demo.service.ChangeStampService;
+import com.example.demo.service.ChangeStampService.Resource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Conditional GET for the public catalog endpoints. The ETag comes from the in-memory change
+ * stamp of the resource family, so a matching If-None-Match is answered with 304 before any
+ * repository call, authentication or controller runs. The ETags are weak: stock changes do not
+ * move them, so two bodies under one tag may differ in quantity. If-None-Match: * is not
+ * honoured, since the filter cannot tell whether the resource exists. Responses also get a
+ * per-family Cache-Control max-age.
+ */
+@Component
+public class ConditionalGetFilter extends OncePerRequestFilter {
+    private final ChangeStampService changeStampService;
+
+    @Value("${http-cache.products.max-age:60s}")
+    private Duration productsMaxAge;
+    @Value("${http-cache.categories.max-age:300s}")
+    private Duration categoriesMaxAge;
+    @Value("${http-cache.hero.max-age:300s}")
+    private Duration heroMaxAge;
+    @Value("${http-cache.reviews.max-age:120s}")
+    private Duration reviewsMaxAge;
+    @Value("${http-cache.comments.max-age:60s}")
+    private Duration commentsMaxAge;
+
+    public ConditionalGetFilter(ChangeStampService changeStampService) {
+        this.changeStampService = changeStampService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Resource resource = "GET".equals(request.getMethod()) ? resolve(request.getRequestURI()) : null;
+        if (resource == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String etag = changeStampService.etag(resource);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.maxAge(maxAge(resource)).cachePublic().getHeaderValue());
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static Resource resolve(String path) {
+        if (path.equals("/api/products/export") || path.startsWith("/api/products/import/") || path.endsWith("/availability")) {
+            return null;
+        }
+        if (path.equals("/api/products") || path.startsWith("/api/products/")) {
+            return Resource.PRODUCTS;
+        }
+        if (path.equals("/api/categories") || path.startsWith("/api/categories/")) {
+            return Resource.CATEGORIES;
+        }
+        if (path.equals("/api/hero")) {
+            return Resource.HERO;
+        }
+        if (path.equals("/api/reviews/approved")) {
+            return Resource.REVIEWS;
+        }
+        if (path.startsWith("/api/comments/product/")) {
+            return Resource.COMMENTS;
+        }
+        return null;
+    }
+
+    private Duration maxAge(Resource resource) {
+        return switch (resource) {
+            case PRODUCTS -> productsMaxAge;
+            case CATEGORIES -> categoriesMaxAge;
+            case HERO -> heroMaxAge;
+            case REVIEWS -> reviewsMaxAge;
+            case COMMENTS -> commentsMaxAge;
+        };
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        // Weak comparison: the W/ prefix is ignored on both sides
+        String opaque = opaque(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            if (opaque(candidate.trim()).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.demo.config;
+
+import com.example.demo.dto.ErrorDetails;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket rate limiting for the public auth endpoints and for API writes. Each route has a
+ * policy per client address and, where the JSON body names an email, a second policy per email,
+ * so one address cannot spray accounts and many addresses cannot hammer one account. Requests
+ * over the limit get 429 with Retry-After here, before reCAPTCHA, BCrypt or SMTP work starts.
+ * <p>
+ * Buckets live in a bounded Caffeine map and each is a single AtomicLong updated by CAS (the
+ * GCRA form of a token bucket: the instant the bucket is full again). A bucket untouched for
+ * the longest refill time of any policy is full again and is dropped; past rate-limit.max-buckets
+ * the map evicts by frequency, so a flood of one-off keys cannot push out the active ones, and
+ * an evicted bucket simply starts full again. Limits are per instance.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final int MAX_KEYED_BODY = 8 * 1024;
+    private static final String REJECTED_MESSAGE = "Too many requests, please try again later.";
+    private static final String TOO_LARGE_MESSAGE = "Request body too large.";
+
+    /** Up to capacity requests at once, then one more every refillEvery. */
+    record Policy(String name, int capacity, Duration refillEvery) {
+    }
+
+    private record Route(Policy perAddress, Policy perEmail) {
+    }
+
+    private static final Map<String, Route> ROUTES = Map.of(
+            "/api/auth/login", new Route(
+                    new Policy("login-ip", 20, Duration.ofSeconds(3)),
+                    new Policy("login-email", 10, Duration.ofSeconds(30))),
+            "/api/auth/register", new Route(
+                    new Policy("register-ip", 5, Duration.ofMinutes(1)),
+                    new Policy("register-email", 3, Duration.ofMinutes(5))),
+            "/api/auth/forgot-password", new Route(
+                    new Policy("forgot-password-ip", 5, Duration.ofMinutes(1)),
+                    new Policy("forgot-password-email", 3, Duration.ofMinutes(5))),
+            "/api/auth/confirm-email", new Route(
+                    new Policy("confirm-email-ip", 10, Duration.ofSeconds(10)),
+                    new Policy("confirm-email-email", 10, Duration.ofSeconds(30))),
+            "/api/auth/reset-password", new Route(
+                    new Policy("reset-password-ip", 10, Duration.ofSeconds(10)), null));
+    // Every other POST/PUT/DELETE under /api
+    private static final Policy WRITES = new Policy("writes-ip", 120, Duration.ofMillis(250));
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Bucket> buckets;
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    public RateLimitFilter(ObjectMapper objectMapper, @Value("${rate-limit.max-buckets:100000}") long maxBuckets) {
+        this.objectMapper = objectMapper;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(longestRefill())
+                .build();
+    }
+
+    /** Time for the slowest policy to refill completely; an idle bucket is full after it. */
+    private static Duration longestRefill() {
+        Duration longest = WRITES.refillEvery().multipliedBy(WRITES.capacity());
+        for (Route route : ROUTES.values()) {
+            for (Policy policy : new Policy[] {route.perAddress(), route.perEmail()}) {
+                if (policy != null && policy.refillEvery().multipliedBy(policy.capacity()).compareTo(longest) > 0) {
+                    longest = policy.refillEvery().multipliedBy(policy.capacity());
+                }
+            }
+        }
+        return longest;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String method = request.getMethod();
+        String path = request.getRequestURI();
+        if (!enabled || "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method) || !path.startsWith("/api/")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long now = System.nanoTime();
+        String address = request.getRemoteAddr();
+        Route route = ROUTES.get(path);
+        if (route == null) {
+            if (allow(WRITES, address, now, request, response)) {
+                filterChain.doFilter(request, response);
+            }
+            return;
+        }
+        if (!allow(route.perAddress(), address, now, request, response)) {
+            return;
+        }
+
+        HttpServletRequest forwarded = request;
+        if (route.perEmail() != null) {
+            // Read whatever the declared length, so a chunked body cannot skip the email limit
+            CachedBodyRequest cached = CachedBodyRequest.of(request);
+            if (cached == null) {
+                reject(HttpStatus.PAYLOAD_TOO_LARGE, TOO_LARGE_MESSAGE, request, response);
+                return;
+            }
+            forwarded = cached;
+            String email = email(cached.body);
+            if (email != null && !allow(route.perEmail(), email, now, request, response)) {
+                return;
+            }
+        }
+        filterChain.doFilter(forwarded, response);
+    }
+
+    private boolean allow(Policy policy, String key, long now, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long waitNanos = bucket(policy, key).tryTake(now, policy.refillEvery().toNanos(), policy.capacity());
+        if (waitNanos == 0) {
+            return true;
+        }
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        reject(HttpStatus.TOO_MANY_REQUESTS, REJECTED_MESSAGE, request, response);
+        return false;
+    }
+
+    private void reject(HttpStatus status, String message, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorDetails(new Date(), message, "uri=" + request.getRequestURI()));
+    }
+
+    private Bucket bucket(Policy policy, String key) {
+        return buckets.get(policy.name() + ':' + key, id -> new Bucket());
+    }
+
+    private String email(byte[] body) {
+        try {
+            String email = objectMapper.readTree(body).path("email").asText("").trim();
+            return email.isEmpty() ? null : email.toLowerCase(Locale.ROOT);
+        } catch (IOException e) {
+            // Malformed JSON is the controller's to reject
+            return null;
+        }
+    }
+
+    /** Token bucket as one timestamp: the instant it is full again, advanced by CAS. */
+    static final class Bucket {
+        private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+        /** Takes one token and returns 0, or returns the nanos until one is available. */
+        long tryTake(long now, long interval, int capacity) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + interval;
+                long overdraft = next - now - interval * capacity;
+                if (overdraft > 0) {
+                    return overdraft;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+
+    /** Holds a small JSON body in memory so it can be read here and again by the controller. */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        /** Buffers the body, declared length or not; null when it is larger than MAX_KEYED_BODY. */
+        static CachedBodyRequest of(HttpServletRequest request) throws IOException {
+            if (request.getContentLengthLong() > MAX_KEYED_BODY) {
+                return null;
+            }
+            byte[] body = request.getInputStream().readNBytes(MAX_KEYED_BODY + 1);
+            return body.length > MAX_KEYED_BODY ? null : new CachedBodyRequest(request, body);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The whole body is already in memory, so it is available at once
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (input.available() > 0) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.*;
 import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.exception.ServiceBusyException;
 import com.example.demo.mapper.UserMapper;
 import com.example.demo.model.User;
 import com.example.demo.service.JwtService;
@@ -89,6 +90,9 @@ public class AuthController {
             User registeredUser = userService.registerUser(user);
             logger.info("Successfully processed registration for user: {}", registeredUser.getEmail());
             return ResponseEntity.ok(registeredUser);
+        } catch (ServiceBusyException e) {
+            // Saturated password-hashing pool: GlobalExceptionHandler answers 503 with Retry-After
+            throw e;
         } catch (Exception e) {
             logger.error("!!! CRITICAL ERROR IN /api/auth/register !!!", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error in AuthController: " + e.getMessage());
@@ -1,5 +1,6 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.CartBatchRequest;
 import com.example.demo.dto.CartDTO;
 import com.example.demo.model.User;
 import com.example.demo.service.CartService;
@@ -25,6 +26,15 @@ public class CartController {
         return ResponseEntity.ok(cartService.addToCart(userId, productId, quantity));
     }
 
+    /** Adds, updates and removes many lines at once, e.g. for "reorder" or "add bundle". */
+    @PostMapping("/batch")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CartDTO> updateCartItems(@AuthenticationPrincipal UserDetails userDetails,
+                                                   @RequestBody CartBatchRequest request){
+        Long userId = ((User) userDetails).getId();
+        return ResponseEntity.ok(cartService.updateItems(userId, request.getOperations()));
+    }
+
     @GetMapping
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<CartDTO> getCart(@AuthenticationPrincipal UserDetails userDetails){
@@ -0,0 +1,24 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.EmailOutboxStatsDTO;
+import com.example.demo.service.EmailOutboxWorker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/email-outbox")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class EmailOutboxController {
+
+    private final EmailOutboxWorker emailOutboxWorker;
+
+    @GetMapping
+    public ResponseEntity<EmailOutboxStatsDTO> getStats() {
+        return ResponseEntity.ok(emailOutboxWorker.getStats());
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.FlashSaleDTO;
+import com.example.demo.service.FlashSaleService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/flash-sales")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class FlashSaleController {
+
+    private final FlashSaleService flashSaleService;
+
+    @GetMapping
+    public ResponseEntity<List<FlashSaleDTO>> getFlashSales() {
+        return ResponseEntity.ok(flashSaleService.getFlashSales());
+    }
+
+    @PostMapping("/{productId}")
+    public ResponseEntity<FlashSaleDTO> activate(@PathVariable Long productId) {
+        return new ResponseEntity<>(flashSaleService.activate(productId), HttpStatus.CREATED);
+    }
+
+    @DeleteMapping("/{productId}")
+    public ResponseEntity<Void> deactivate(@PathVariable Long productId) {
+        flashSaleService.deactivate(productId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,31 +1,44 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.BulkOrderStatusRequest;
+import com.example.demo.dto.CursorPageDTO;
 import com.example.demo.dto.OrderDTO;
+import com.example.demo.dto.OrderStatusUpdateResultDTO;
+import com.example.demo.exception.InvalidRequestException;
 import com.example.demo.model.Order;
 import com.example.demo.model.User;
+import com.example.demo.service.OrderIdempotencyService;
 import com.example.demo.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/orders")
 @RequiredArgsConstructor
 public class OrderController {
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final OrderService orderService;
+    private final OrderIdempotencyService orderIdempotencyService;
 
     @PostMapping
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<OrderDTO> createOrder(@AuthenticationPrincipal UserDetails userDetails,
                                                 @RequestParam String address,
-                                                @RequestParam String phoneNumber){
+                                                @RequestParam String phoneNumber,
+                                                @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey){
         Long userId = ((User) userDetails).getId();
-        OrderDTO orderDTO = orderService.createOrder(userId, address, phoneNumber);
+        OrderDTO orderDTO = idempotencyKey == null
+                ? orderService.createOrder(userId, address, phoneNumber)
+                : orderIdempotencyService.createOrder(userId, idempotencyKey, address, phoneNumber);
         return ResponseEntity.ok(orderDTO);
     }
 
@@ -35,6 +48,29 @@ public class OrderController {
         List<OrderDTO> orders = orderService.getAllOrders();
         return ResponseEntity.ok(orders);
     }
+    /**
+     * Paginated admin listing, newest first. Pass the returned nextCursor to get the next page;
+     * the date range is [from, to). view=summary skips line items and returns totals instead.
+     */
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPageDTO<?>> searchOrders(
+            @RequestParam(required = false) Order.OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "full") String view) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        CursorPageDTO<?> page = switch (view) {
+            case "full" -> orderService.getOrdersByCursor(status, from, to, userId, cursor, pageSize);
+            case "summary" -> orderService.getOrderSummariesByCursor(status, from, to, userId, cursor, pageSize);
+            default -> throw new InvalidRequestException("view must be full or summary");
+        };
+        return ResponseEntity.ok(page);
+    }
+
     @GetMapping("/user")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<List<OrderDTO>> getUserOrders(@AuthenticationPrincipal UserDetails userDetails){
@@ -51,5 +87,12 @@ public class OrderController {
         return ResponseEntity.ok(updatedOrder);
     }
 
+    /** Moves many orders to one status, e.g. at shift close; reports the outcome per order id. */
+    @PutMapping("/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<OrderStatusUpdateResultDTO>> updateOrderStatuses(@RequestBody BulkOrderStatusRequest request){
+        return ResponseEntity.ok(orderService.updateOrderStatuses(request.getOrderIds(), request.getStatus()));
+    }
+
 
 }
\ No newline at end of file
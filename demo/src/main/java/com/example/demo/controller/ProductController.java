@@ -1,29 +1,56 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.CursorPageDTO;
+import com.example.demo.dto.ProductAvailabilityDTO;
 import com.example.demo.dto.ProductDTO;
+import com.example.demo.dto.ProductFacetsDTO;
+import com.example.demo.dto.ProductImportJobDTO;
+import com.example.demo.dto.ProductListDTO;
+import com.example.demo.service.FlashSaleService;
+import com.example.demo.service.InventoryReservationService;
+import com.example.demo.service.ProductFacetService;
+import com.example.demo.service.ProductImportService;
 import com.example.demo.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/products")
 @CrossOrigin(origins = "*")
 public class ProductController {
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
 
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private FlashSaleService flashSaleService;
+
     @PostMapping(consumes = { "multipart/form-data" })
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ProductDTO> addProduct(
@@ -43,6 +70,24 @@ public class ProductController {
         return ResponseEntity.ok(updatedProduct);
     }
 
+    /**
+     * Queues a bulk import of a CSV or NDJSON file; the format comes from the parameter or the file extension.
+     * Poll GET /api/products/import/{jobId} for progress and the per-row error report.
+     */
+    @PostMapping(value = "/import", consumes = { "multipart/form-data" })
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductImportJobDTO> importProducts(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "format", required = false) String format) throws IOException {
+        return new ResponseEntity<>(productImportService.startImport(file, format), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/import/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductImportJobDTO> getImportJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(productImportService.getJob(jobId));
+    }
+
     @PostMapping("/description-image")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> uploadDescriptionImage(@RequestParam("image") MultipartFile image) {
@@ -83,6 +128,98 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    /**
+     * Slim listing for product grids: same filters and paging as getAllProducts, but each
+     * entry is a ProductListDTO card instead of the full product.
+     */
+    @GetMapping("/list")
+    public ResponseEntity<Page<ProductListDTO>> getProductList(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) Boolean bestseller,
+            @RequestParam(required = false) Boolean newArrival,
+            Pageable pageable) {
+        return ResponseEntity.ok(productService.getProductList(search, categoryId, minPrice, maxPrice, brand, bestseller, newArrival, pageable));
+    }
+
+    /**
+     * Opt-in keyset paging for infinite scroll: selected when a "cursor" parameter is present
+     * (empty for the first page). Supports sorting by id, name or price and skips the COUNT query.
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getProductsByCursor(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) Boolean bestseller,
+            @RequestParam(required = false) Boolean newArrival,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Sort sort) {
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        return ResponseEntity.ok(productService.getProductsByCursor(search, categoryId, minPrice, maxPrice, brand, bestseller, newArrival, cursor, pageSize, sort));
+    }
+
+    /**
+     * Returns brand, category, flag and price-bucket counts for the same filters
+     * accepted by getAllProducts, computed in a single aggregation.
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacetsDTO> getProductFacets(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) Boolean bestseller,
+            @RequestParam(required = false) Boolean newArrival) {
+        return ResponseEntity.ok(productFacetService.getFacets(search, categoryId, minPrice, maxPrice, brand, bestseller, newArrival));
+    }
+
+    /**
+     * Streams the whole catalog as NDJSON (one ProductDTO per line). With gzip=true the body is a
+     * gzip file (application/gzip, products.ndjson.gz) rather than a Content-Encoding, so clients
+     * save it compressed instead of decoding it on the fly.
+     */
+    @GetMapping(value = "/export", produces = {"application/x-ndjson", "application/gzip"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "false") boolean gzip) {
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+                productService.exportProducts(gzipOut);
+                gzipOut.finish();
+            } else {
+                productService.exportProducts(out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : "application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.ndjson" + (gzip ? ".gz" : "") + "\"")
+                .body(body);
+    }
+
+    /**
+     * Live availability for product pages: on-hand stock from the product cache minus the
+     * units currently held in carts.
+     */
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<ProductAvailabilityDTO> getAvailability(@PathVariable Long id) {
+        if (flashSaleService.isActive(id)) {
+            int remaining = (int) flashSaleService.remaining(id);
+            return ResponseEntity.ok(new ProductAvailabilityDTO(id, remaining, 0, remaining));
+        }
+        ProductDTO product = productService.getProductById(id);
+        int onHand = product.getQuantity() == null ? 0 : product.getQuantity();
+        return ResponseEntity.ok(new ProductAvailabilityDTO(id, onHand, inventoryReservationService.getReserved(id),
+                inventoryReservationService.availableToSell(id, onHand)));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id) {
         return ResponseEntity.ok(productService.getProductById(id));
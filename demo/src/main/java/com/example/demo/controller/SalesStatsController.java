@@ -0,0 +1,41 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.SalesStatsDTO;
+import com.example.demo.service.SalesRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sales-stats")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class SalesStatsController {
+    private static final int MAX_TOP_PRODUCTS = 100;
+
+    private final SalesRollupService salesRollupService;
+
+    /** Sales for [from, to], defaulting to the last 30 days. */
+    @GetMapping
+    public ResponseEntity<SalesStatsDTO> getStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int top) {
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(29) : from;
+        return ResponseEntity.ok(salesRollupService.getStats(start, end, Math.max(1, Math.min(top, MAX_TOP_PRODUCTS))));
+    }
+
+    /** Recomputes the rollups of [from, to] from the orders, e.g. to backfill history. */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuild(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(Map.of("days", salesRollupService.rebuild(from, to)));
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.Order;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkOrderStatusRequest {
+    private List<Long> orderIds;
+    private Order.OrderStatus status;
+}
@@ -0,0 +1,10 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CartBatchRequest {
+    private List<CartLineOperation> operations;
+}
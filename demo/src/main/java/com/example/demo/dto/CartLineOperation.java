@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartLineOperation {
+    private Long productId;
+    private Action action;
+    private Integer quantity; // units to add for ADD, the new line quantity for SET; ignored for REMOVE
+
+    public enum Action {
+        ADD, SET, REMOVE
+    }
+}
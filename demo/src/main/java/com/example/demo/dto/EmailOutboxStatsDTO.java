@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutboxStatsDTO {
+    private long pending;
+    private long sending;
+    private long sent; // within the retention window
+    private long failed; // gave up after the maximum number of attempts
+    private Instant oldestUnsentAt; // null when the queue is empty
+    private int busyWorkers;
+}
@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlashSaleDTO {
+    private Long productId;
+    private int baseStock;
+    private long remaining;
+    private long pendingFlush; // sold but not yet written to the product row
+    private LocalDateTime activatedAt;
+}
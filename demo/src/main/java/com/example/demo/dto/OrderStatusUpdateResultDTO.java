@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusUpdateResultDTO {
+    private Long orderId;
+    private Outcome outcome;
+    private Order.OrderStatus status; // the order's status after the request; null when not found
+
+    public enum Outcome {
+        UPDATED,
+        UNCHANGED,            // already in the requested status
+        NOT_FOUND,
+        INVALID_TRANSITION    // the current status cannot move to the requested one
+    }
+}
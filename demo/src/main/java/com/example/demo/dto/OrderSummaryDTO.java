@@ -0,0 +1,23 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryDTO {
+    private Long id;
+    private Long userId;
+    private Order.OrderStatus status;
+    private LocalDateTime createdAt;
+    private String address;
+    private String phoneNumber;
+    private long itemCount;
+    private BigDecimal total;
+}
@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceBucketDTO {
+    private BigDecimal minPrice; // inclusive, null for the lowest bucket
+    private BigDecimal maxPrice; // exclusive, null for the highest bucket
+    private long count;
+}
@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductAvailabilityDTO {
+    private Long productId;
+    private int onHand;
+    private int reserved; // held in carts
+    private int available; // onHand - reserved, never negative
+}
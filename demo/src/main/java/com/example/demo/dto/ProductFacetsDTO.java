@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ProductFacetsDTO {
+    private long total;
+    private List<FacetCountDTO> brands;
+    private List<FacetCountDTO> categories;
+    private long bestsellers;
+    private long newArrivals;
+    private List<PriceBucketDTO> priceBuckets;
+}
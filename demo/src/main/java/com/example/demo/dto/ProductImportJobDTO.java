@@ -0,0 +1,25 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportJobDTO {
+    private String id;
+    private String status; // QUEUED, RUNNING, COMPLETED or FAILED
+    private String format;
+    private long processed;
+    private long imported;
+    private long failed;
+    private List<ProductImportErrorDTO> errors;
+    private boolean errorsTruncated;
+    private String failureReason;
+    private Date startedAt;
+    private Date finishedAt;
+}
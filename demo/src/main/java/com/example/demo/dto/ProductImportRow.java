@@ -0,0 +1,29 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * One record of a bulk product import. CSV files use these names as header columns
+ * (images separated by '|'); NDJSON files use them as object keys. The category is
+ * resolved by categoryId when present, otherwise by category name.
+ */
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductImportRow {
+    private String name;
+    private String description;
+    private BigDecimal price;
+    private Integer quantity;
+    private String brand;
+    private Boolean bestseller;
+    private Boolean newArrival;
+    private Long categoryId;
+    private String category;
+    private List<String> images;
+}
@@ -8,18 +8,20 @@ import lombok.Data;
 
 import java.math.BigDecimal;
 
+/**
+ * Slim product card for catalog grids. Holds only the columns a card renders:
+ * no description, comments or image list.
+ */
 @Data
 @AllArgsConstructor
 public class ProductListDTO {
     private Long id;
     @NotBlank(message = "Name is required")
     private String name;
-    @NotBlank(message = "Description is required")
-    private String description;
     @Positive(message = "Price must be positive")
     private BigDecimal price;
     @PositiveOrZero(message = "Qunatity must be positive or zero")
     private Integer quantity;
-    private String image;
+    private String image; // First product image, or null when the product has none
     private String brand; // Added brand
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesStatsDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private long orderCount;
+    private long units;
+    private BigDecimal revenue;
+    private List<Day> days;
+    private List<ProductSales> topProducts;
+    private List<CategorySales> categories;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Day {
+        private LocalDate date;
+        private long orderCount;
+        private long units;
+        private BigDecimal revenue;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ProductSales {
+        private Long productId;
+        private String productName;
+        private long orderCount;
+        private long units;
+        private BigDecimal revenue;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CategorySales {
+        private Long categoryId;
+        private String categoryName;
+        private long units;
+        private BigDecimal revenue;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import com.example.demo.exception.InsufficientStockException.StockShortage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Date;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class StockErrorDetails {
+    private Date timestamp;
+    private String message;
+    private String details;
+    private List<StockShortage> shortages;
+}
@@ -1,5 +1,22 @@
 package com.example.demo.exception;
 
+import java.util.List;
+
 public class InsufficientStockException extends RuntimeException{
-    public InsufficientStockException(String message){ super(message);}
+    /** One cart line that could not be reserved; available is null when the product no longer exists. */
+    public record StockShortage(Long productId, String productName, int requested, Integer available) {
+    }
+
+    private final List<StockShortage> shortages;
+
+    public InsufficientStockException(String message){ this(message, List.of());}
+
+    public InsufficientStockException(String message, List<StockShortage> shortages){
+        super(message);
+        this.shortages = shortages;
+    }
+
+    public List<StockShortage> getShortages() {
+        return shortages;
+    }
 }
@@ -0,0 +1,7 @@
+package com.example.demo.exception;
+
+/** A paging cursor that cannot be decoded or does not fit the requested sort. */
+public class InvalidCursorException extends InvalidRequestException{
+    public InvalidCursorException(String message){ super(message);}
+    public InvalidCursorException(String message, Throwable cause){ super(message, cause);}
+}
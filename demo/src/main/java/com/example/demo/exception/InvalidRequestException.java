@@ -0,0 +1,7 @@
+package com.example.demo.exception;
+
+/** The request itself is invalid (bad parameter, malformed body); answered with 400. */
+public class InvalidRequestException extends RuntimeException{
+    public InvalidRequestException(String message){ super(message);}
+    public InvalidRequestException(String message, Throwable cause){ super(message, cause);}
+}
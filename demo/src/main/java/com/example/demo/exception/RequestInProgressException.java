@@ -0,0 +1,6 @@
+package com.example.demo.exception;
+
+/** An earlier request with the same Idempotency-Key has not finished; retry with the same key. */
+public class RequestInProgressException extends RuntimeException{
+    public RequestInProgressException(String message){ super(message);}
+}
@@ -0,0 +1,6 @@
+package com.example.demo.exception;
+
+/** A bounded resource is saturated; the request can be retried shortly. */
+public class ServiceBusyException extends RuntimeException{
+    public ServiceBusyException(String message){ super(message);}
+}
@@ -0,0 +1,24 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The persisted change counter of one publicly cached resource family (see ChangeStampService).
+ * Incremented after every committed write to the family; instances seed and refresh their in-memory stamps from it.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "change_stamps")
+public class ChangeStamp {
+    @Id
+    @Column(length = 32)
+    private String resource;
+
+    @Column(nullable = false)
+    private long version;
+}
@@ -0,0 +1,32 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A product sold from in-memory stock counters. baseStock is the product quantity at activation;
+ * flushedQuantity is how much of what was sold since then has been written back to the product row.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "flash_sales")
+public class FlashSale {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer baseStock;
+
+    @Column(nullable = false)
+    private LocalDateTime activatedAt;
+
+    @Column(nullable = false)
+    private Long flushedQuantity;
+}
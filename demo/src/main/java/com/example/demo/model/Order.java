@@ -15,7 +15,10 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name="orders")
+@Table(name="orders", indexes = {
+        @Index(name = "idx_orders_user_id", columnList = "user_id"),
+        @Index(name = "idx_orders_status_id", columnList = "status, id")
+})
 public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -32,7 +35,16 @@ public class Order {
     private OrderStatus status;
 
     public enum OrderStatus {
-        PREPARING, DELIVERING, DELIVERED, CANCELED
+        PREPARING, DELIVERING, DELIVERED, CANCELED;
+
+        /** Forward moves only; DELIVERED and CANCELED are final. */
+        public boolean canTransitionTo(OrderStatus target) {
+            return switch (this) {
+                case PREPARING -> target == DELIVERING || target == DELIVERED || target == CANCELED;
+                case DELIVERING -> target == DELIVERED || target == CANCELED;
+                case DELIVERED, CANCELED -> false;
+            };
+        }
     }
 
     private LocalDateTime createdAt;
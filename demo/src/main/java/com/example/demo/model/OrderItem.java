@@ -8,6 +8,7 @@ import java.math.BigDecimal;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(indexes = @Index(name = "idx_order_item_order_id", columnList = "order_id"))
 public class OrderItem {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,4 +21,7 @@ public class OrderItem {
     private Product product;
     private Integer quantity;
     private BigDecimal price;
+    // Taken from a flash-sale counter rather than the product row; null on older rows
+    @Column(name = "flash_sale")
+    private Boolean flashSale;
 }
\ No newline at end of file
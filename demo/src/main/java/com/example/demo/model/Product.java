@@ -10,6 +10,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+        // Keyset paging seeks on (sort key, id)
+        @Index(name = "idx_product_name_id", columnList = "name, id"),
+        @Index(name = "idx_product_price_id", columnList = "price, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
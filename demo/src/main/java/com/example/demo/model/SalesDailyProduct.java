@@ -0,0 +1,58 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One stripe of the sales of one product on one day; orderCount is the number of orders
+ * containing it, and the product's figures are the sum over its stripes. The product's category
+ * is copied in so category totals are a group-by over this table alone. Maintained by
+ * SalesRollupService; never written through JPA.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(SalesDailyProduct.Key.class)
+@Table(name = "sales_daily_product",
+        indexes = @Index(name = "idx_sales_daily_product_category", columnList = "category_id, sale_date"))
+public class SalesDailyProduct {
+    @Id
+    @Column(name = "sale_date")
+    private LocalDate saleDate;
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Id
+    @Column(nullable = false)
+    private int stripe;
+
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false)
+    private long units;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate saleDate;
+        private Long productId;
+        private int stripe;
+    }
+}
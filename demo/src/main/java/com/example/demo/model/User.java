@@ -44,6 +44,10 @@ public class User implements UserDetails {
     private boolean emailConfirmation;
     private String confirmationCode;
 
+    // Bumped whenever the password, role or account changes; tokens carrying an older value are rejected
+    @Column(name = "credentials_version")
+    private Integer credentialsVersion;
+
     private String resetPasswordToken;
     private LocalDateTime resetPasswordTokenExpiry;
 
@@ -0,0 +1,22 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.ChangeStamp;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface ChangeStampRepository extends JpaRepository<ChangeStamp, String> {
+
+    // Runs in the short transaction ChangeStampService opens after the write has committed
+    @Transactional
+    @Modifying
+    @Query("update ChangeStamp s set s.version = s.version + 1 where s.resource = :resource")
+    int increment(@Param("resource") String resource);
+
+    @Query("select s.version from ChangeStamp s where s.resource = :resource")
+    Optional<Long> findVersion(@Param("resource") String resource);
+}
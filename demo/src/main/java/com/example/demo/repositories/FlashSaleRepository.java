@@ -0,0 +1,15 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.FlashSale;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface FlashSaleRepository extends JpaRepository<FlashSale, Long> {
+
+    // Units of the product taken from the flash-sale counter since the sale was activated
+    @Query("select coalesce(sum(i.quantity), 0) from OrderItem i where i.product.id = :productId and i.flashSale = true and i.order.createdAt >= :since")
+    long sumOrderedSince(@Param("productId") Long productId, @Param("since") LocalDateTime since);
+}
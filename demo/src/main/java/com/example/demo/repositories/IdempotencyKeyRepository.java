@@ -0,0 +1,30 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.IdempotencyKey;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+    @Query("select k from IdempotencyKey k where k.userId = :userId and k.idempotencyKey = :key and k.expiresAt > :now")
+    Optional<IdempotencyKey> findActive(@Param("userId") Long userId, @Param("key") String key, @Param("now") Instant now);
+
+    @Query("select k.id from IdempotencyKey k where k.expiresAt <= :now order by k.id")
+    List<Long> findExpiredIds(@Param("now") Instant now, Pageable pageable);
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // An expired key may be reused; its row is cleared before the new one is written
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.userId = :userId and k.idempotencyKey = :key and k.expiresAt <= :now")
+    int deleteExpired(@Param("userId") Long userId, @Param("key") String key, @Param("now") Instant now);
+}
@@ -2,12 +2,45 @@
 package com.example.demo.repositories;
 
 import com.example.demo.model.Order;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
     List<Order> findByUserId(Long userId);
 
     // Check if any orders exist for a given user ID
     boolean existsByUserId(Long userId);
-}
\ No newline at end of file
+
+    // One query for a page of orders with their items and products
+    @Query("select distinct o from Order o left join fetch o.items i left join fetch i.product where o.id in :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // id and status only, for validating bulk status changes without loading orders; the rows
+    // stay locked (in id order) until the status change commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o.id, o.status from Order o where o.id in :ids order by o.id")
+    List<Object[]> findStatusesByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
+
+    // Set-based status change of rows already locked by findStatusesByIdInForUpdate
+    @Modifying
+    @Query("update Order o set o.status = :target where o.id in :ids and o.status in :sources")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("sources") Collection<Order.OrderStatus> sources,
+                     @Param("target") Order.OrderStatus target);
+
+    // Item count and total per order, without loading the items
+    @Query("select i.order.id, count(i), sum(i.price * i.quantity) from OrderItem i where i.order.id in :ids group by i.order.id")
+    List<Object[]> summarizeItems(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,35 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.OutboxEmail;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+
+    // Due retries plus SENDING rows whose lease ran out; SKIP LOCKED keeps concurrent claimers apart
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from OutboxEmail e where e.status in :statuses and e.nextAttemptAt <= :now order by e.nextAttemptAt")
+    List<OutboxEmail> findDueForUpdate(@Param("statuses") Collection<OutboxEmail.Status> statuses, @Param("now") Instant now, Pageable pageable);
+
+    @Query("select e.status, count(e) from OutboxEmail e group by e.status")
+    List<Object[]> countByStatus();
+
+    @Query("select min(e.createdAt) from OutboxEmail e where e.status in :statuses")
+    Instant findOldestCreatedAt(@Param("statuses") Collection<OutboxEmail.Status> statuses);
+
+    @Modifying
+    @Query("delete from OutboxEmail e where e.status = :status and e.createdAt < :before")
+    int deleteByStatusCreatedBefore(@Param("status") OutboxEmail.Status status, @Param("before") Instant before);
+}
@@ -1,12 +1,22 @@
 package com.example.demo.repositories;
 
 import com.example.demo.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductRepositoryCustom {
 
     // --- MODIFIED START ---
     // The invalid custom @Query annotations have been removed.
@@ -14,8 +24,38 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
 
     Page<Product> findByCategoryId(Long categoryId, Pageable pageable);
 
+    // Fetch plans: the category is joined into every product query; the images and comments
+    // collections of a page are loaded in batches (hibernate.default_batch_fetch_size), which
+    // keeps paginated queries free of collection fetch joins.
+    @EntityGraph(attributePaths = {"category", "images"})
     Page<Product> findByBestsellerIsTrue(Pageable pageable);
 
+    @EntityGraph(attributePaths = {"category", "images"})
     Page<Product> findByNewArrivalIsTrue(Pageable pageable);
     // --- MODIFIED END ---
+
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Page<Product> findAll(Specification<Product> spec, Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = {"category", "images"})
+    Optional<Product> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Product> findAllById(Iterable<Long> ids);
+
+    // Id-ordered batches for rebuilding the search index without OFFSET scans.
+    List<Product> findByIdGreaterThan(Long id, Pageable pageable);
+
+    List<Product> findByCategoryIdAndIdGreaterThan(Long categoryId, Long id, Pageable pageable);
+
+    // Forward-only cursor over the whole catalog; must be consumed inside a transaction.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Product p order by p.id")
+    Stream<Product> streamAllByOrderById();
 }
\ No newline at end of file
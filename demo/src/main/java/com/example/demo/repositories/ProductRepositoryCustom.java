@@ -0,0 +1,41 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dto.ProductListDTO;
+import com.example.demo.model.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.SortedMap;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * One row per (brand, category, bestseller, newArrival, price bucket) combination of the
+     * products matching the specification. priceBucket is the index of the first bound the
+     * price is below, or priceBounds.size() for the open-ended top bucket.
+     */
+    record FacetRow(String brand, Long categoryId, boolean bestseller, boolean newArrival, int priceBucket, long count) {
+    }
+
+    List<FacetRow> countFacets(Specification<Product> spec, List<BigDecimal> priceBounds);
+
+    /**
+     * Card projection of the listing: selects only the card columns plus the first image of
+     * each product, without materializing Product entities.
+     */
+    Page<ProductListDTO> findProductList(Specification<Product> spec, Pageable pageable);
+
+    /** Card projection for the given ids, in the order of the ids. */
+    List<ProductListDTO> findProductListByIds(List<Long> ids);
+
+    /**
+     * Takes the requested quantities off stock with one conditional update per product
+     * ({@code quantity >= requested}), sent as a single JDBC batch in ascending id order so
+     * concurrent checkouts lock rows in the same order. Returns the ids whose row was not
+     * updated (unknown product or not enough stock); the caller must roll back in that case.
+     */
+    List<Long> decrementStock(SortedMap<Long, Integer> quantitiesByProductId);
+}
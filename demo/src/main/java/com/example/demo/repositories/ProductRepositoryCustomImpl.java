@@ -0,0 +1,172 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dto.ProductListDTO;
+import com.example.demo.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private static final String DECREMENT_STOCK = "update product set quantity = quantity - ? where id = ? and quantity >= ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> decrementStock(SortedMap<Long, Integer> quantitiesByProductId) {
+        List<Object[]> batch = new ArrayList<>(quantitiesByProductId.size());
+        quantitiesByProductId.forEach((productId, quantity) -> batch.add(new Object[] {quantity, productId, quantity}));
+        int[] updateCounts = jdbcTemplate.batchUpdate(DECREMENT_STOCK, batch);
+
+        List<Long> failed = new ArrayList<>();
+        int index = 0;
+        for (Long productId : quantitiesByProductId.keySet()) {
+            int count = updateCounts[index++];
+            if (count == 0 || count == Statement.EXECUTE_FAILED) {
+                failed.add(productId);
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public List<FacetRow> countFacets(Specification<Product> spec, List<BigDecimal> priceBounds) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Product> root = query.from(Product.class);
+
+        Path<String> brand = root.get("brand");
+        Path<Long> categoryId = root.get("category").get("id");
+        Path<Boolean> bestseller = root.get("bestseller");
+        Path<Boolean> newArrival = root.get("newArrival");
+        Expression<Integer> priceBucket = priceBucket(cb, root.get("price"), priceBounds);
+
+        query.multiselect(brand, categoryId, bestseller, newArrival, priceBucket, cb.count(root))
+                .groupBy(brand, categoryId, bestseller, newArrival, priceBucket);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(row -> new FacetRow((String) row[0], (Long) row[1], (Boolean) row[2], (Boolean) row[3],
+                        ((Number) row[4]).intValue(), (Long) row[5]))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Page<ProductListDTO> findProductList(Specification<Product> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Product> root = query.from(Product.class);
+        selectCardColumns(query, root);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<Object[]> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<ProductListDTO> content = withFirstImages(typedQuery.getResultList().stream()
+                .map(ProductRepositoryCustomImpl::toCard)
+                .collect(Collectors.toList()));
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<ProductListDTO> findProductListByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Product> root = query.from(Product.class);
+        selectCardColumns(query, root);
+        query.where(root.get("id").in(ids));
+
+        Map<Long, ProductListDTO> cardsById = withFirstImages(entityManager.createQuery(query).getResultList().stream()
+                .map(ProductRepositoryCustomImpl::toCard)
+                .collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(ProductListDTO::getId, Function.identity()));
+        return ids.stream().map(cardsById::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private static void selectCardColumns(CriteriaQuery<Object[]> query, Root<Product> root) {
+        query.multiselect(root.get("id"), root.get("name"), root.get("price"), root.get("quantity"), root.get("brand"));
+    }
+
+    private static ProductListDTO toCard(Object[] row) {
+        return new ProductListDTO((Long) row[0], (String) row[1], (BigDecimal) row[2], (Integer) row[3], null, (String) row[4]);
+    }
+
+    /**
+     * Fills in the image of every card with one query over the images collection table. The
+     * collection has no position column, so the card takes the smallest image URL: the same
+     * image on every request, whatever order the database returns the rows in.
+     */
+    private List<ProductListDTO> withFirstImages(List<ProductListDTO> cards) {
+        if (cards.isEmpty()) {
+            return cards;
+        }
+        List<Long> ids = cards.stream().map(ProductListDTO::getId).collect(Collectors.toList());
+        Map<Long, String> firstImages = new HashMap<>();
+        entityManager.createQuery("select p.id, min(i) from Product p join p.images i where p.id in :ids group by p.id", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList()
+                .forEach(row -> firstImages.put((Long) row[0], (String) row[1]));
+        cards.forEach(card -> card.setImage(firstImages.get(card.getId())));
+        return cards;
+    }
+
+    private long count(Specification<Product> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+        query.select(cb.count(root));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Expression<Integer> priceBucket(CriteriaBuilder cb, Path<BigDecimal> price, List<BigDecimal> priceBounds) {
+        CriteriaBuilder.Case<Integer> bucket = cb.selectCase();
+        for (int i = 0; i < priceBounds.size(); i++) {
+            bucket = bucket.when(cb.lessThan(price, priceBounds.get(i)), i);
+        }
+        return bucket.otherwise(priceBounds.size());
+    }
+}
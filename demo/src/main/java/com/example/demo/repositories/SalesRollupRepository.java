@@ -0,0 +1,28 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.SalesDaily;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SalesRollupRepository extends JpaRepository<SalesDaily, SalesDaily.Key> {
+
+    // saleDate, orders, units, revenue; the stripes of each day folded together
+    @Query("select s.saleDate, sum(s.orderCount), sum(s.units), sum(s.revenue) from SalesDaily s " +
+            "where s.saleDate between :from and :to group by s.saleDate order by s.saleDate")
+    List<Object[]> sumByDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // productId, orders, units, revenue; best sellers by revenue first
+    @Query("select s.productId, sum(s.orderCount), sum(s.units), sum(s.revenue) from SalesDailyProduct s " +
+            "where s.saleDate between :from and :to group by s.productId order by sum(s.revenue) desc")
+    List<Object[]> sumByProduct(@Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+
+    // categoryId, units, revenue
+    @Query("select s.categoryId, sum(s.units), sum(s.revenue) from SalesDailyProduct s " +
+            "where s.saleDate between :from and :to group by s.categoryId order by sum(s.revenue) desc")
+    List<Object[]> sumByCategory(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
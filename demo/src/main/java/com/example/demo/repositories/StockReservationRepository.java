@@ -0,0 +1,36 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.StockReservation;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+    // The user's holds, locked: the expiry sweep (SKIP LOCKED) cannot delete them underneath,
+    // so their units leave the in-memory counter exactly once
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from StockReservation r where r.userId = :userId and r.productId = :productId")
+    Optional<StockReservation> findByUserIdAndProductIdForUpdate(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from StockReservation r where r.userId = :userId order by r.id")
+    List<StockReservation> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    // SKIP LOCKED: rows held by a concurrent cart update are left for the next sweep
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select r from StockReservation r where r.expiresAt <= :now order by r.id")
+    List<StockReservation> findExpiredForUpdate(@Param("now") Instant now, Pageable pageable);
+
+    @Query("select r.productId, sum(r.quantity) from StockReservation r group by r.productId")
+    List<Object[]> sumQuantitiesByProduct();
+}
@@ -2,9 +2,24 @@ package com.example.demo.repositories;
 
 import com.example.demo.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     Optional<User> findByResetPasswordToken(String token); // Add this line
-}
\ No newline at end of file
+
+    // Only the credentials version, for checking tokens without loading the user
+    @Query("select coalesce(u.credentialsVersion, 0) from User u where u.id = :id")
+    Optional<Integer> findCredentialsVersionById(@Param("id") Long id);
+
+    // Replaces only the stored hash (rehash on login); the credentials version is left alone
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.email = :email")
+    int updatePasswordByEmail(@Param("email") String email, @Param("password") String password);
+}
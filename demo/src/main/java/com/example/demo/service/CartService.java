@@ -1,7 +1,9 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.CartDTO;
+import com.example.demo.dto.CartLineOperation;
 import com.example.demo.exception.InsufficientStockException;
+import com.example.demo.exception.InvalidRequestException;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.mapper.CartMapper;
 import com.example.demo.model.Cart;
@@ -11,36 +13,55 @@ import com.example.demo.model.User;
 import com.example.demo.repositories.CartRepository;
 import com.example.demo.repositories.ProductRepository;
 import com.example.demo.repositories.UserRepository;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CartService {
+    private static final int MAX_BATCH_OPERATIONS = 100;
+
     private final CartRepository cartRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final CartMapper cartMapper;
+    private final InventoryReservationService inventoryReservationService;
+    private final FlashSaleService flashSaleService;
 
+    @Transactional
     public CartDTO addToCart(Long userId, Long productId, Integer quantity){
         User user = userRepository.findById(userId)
                 .orElseThrow(()->new ResourceNotFoundException("User not found"));
         Product product = productRepository.findById(productId)
                 .orElseThrow(()->new ResourceNotFoundException("Product not found"));
 
-        if(product.getQuantity()<quantity){
-            throw new InsufficientStockException("Not enough available");
-        }
-
         Cart cart = cartRepository.findByUserId(userId)
                 .orElse(new Cart(null, user, new ArrayList<>()));
         Optional<CartItem> existingCartItem = cart.getItems().stream()
                 .filter(item -> item.getProduct().getId().equals(productId))
                 .findFirst();
 
+        // Holds the whole line (not just the added units) against stock not held by other carts.
+        int lineQuantity = existingCartItem.map(CartItem::getQuantity).orElse(0) + quantity;
+        if (flashSaleService.isActive(productId)) {
+            // No holds during a flash sale: stock goes to whoever checks out first.
+            if (flashSaleService.remaining(productId) < lineQuantity) {
+                throw new InsufficientStockException("Not enough available");
+            }
+        } else {
+            inventoryReservationService.hold(userId, productId, lineQuantity, product.getQuantity());
+        }
+
         if(existingCartItem.isPresent()){
             CartItem cartItem = existingCartItem.get();
             cartItem.setQuantity(cartItem.getQuantity()+quantity);
@@ -53,21 +74,133 @@ public class CartService {
 
     }
 
+    /**
+     * Applies many line changes in one go, in order: ADD adds units, SET replaces the line
+     * quantity (0 removes it) and REMOVE drops the line. The cart and the referenced products
+     * are each read once and the cart is saved once; if any line cannot be held, nothing changes.
+     */
+    @Transactional
+    public CartDTO updateItems(Long userId, List<CartLineOperation> operations){
+        if (operations == null || operations.isEmpty()) {
+            throw new InvalidRequestException("operations must not be empty");
+        }
+        if (operations.size() > MAX_BATCH_OPERATIONS) {
+            throw new InvalidRequestException("At most " + MAX_BATCH_OPERATIONS + " cart operations per request");
+        }
+
+        Cart cart = cartRepository.findByUserId(userId)
+                .orElseGet(() -> new Cart(null, userRepository.getReferenceById(userId), new ArrayList<>()));
+        Map<Long, CartItem> itemsByProduct = new HashMap<>();
+        for (CartItem item : cart.getItems()) {
+            itemsByProduct.putIfAbsent(item.getProduct().getId(), item);
+        }
+
+        // Resulting quantity of every touched line, starting from what the cart holds now.
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CartLineOperation operation : operations) {
+            Long productId = operation.getProductId();
+            if (productId == null || operation.getAction() == null) {
+                throw new InvalidRequestException("Each operation needs a productId and an action");
+            }
+            int current = quantities.computeIfAbsent(productId, id -> {
+                CartItem item = itemsByProduct.get(id);
+                return item == null ? 0 : item.getQuantity();
+            });
+            int quantity = operation.getQuantity() == null ? 0 : operation.getQuantity();
+            int updated = switch (operation.getAction()) {
+                case ADD -> {
+                    if (quantity <= 0) {
+                        throw new InvalidRequestException("ADD needs a positive quantity for product " + productId);
+                    }
+                    yield current + quantity;
+                }
+                case SET -> {
+                    if (quantity < 0) {
+                        throw new InvalidRequestException("SET needs a quantity of 0 or more for product " + productId);
+                    }
+                    yield quantity;
+                }
+                case REMOVE -> 0;
+            };
+            quantities.put(productId, updated);
+        }
+
+        List<Long> kept = quantities.entrySet().stream().filter(entry -> entry.getValue() > 0).map(Map.Entry::getKey).toList();
+        Map<Long, Product> products = productRepository.findAllById(kept).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        for (Long productId : kept) {
+            if (!products.containsKey(productId)) {
+                throw new ResourceNotFoundException("Product not found with id: " + productId);
+            }
+        }
+
+        // Flash-sale lines are never held; every other line's hold follows its new quantity.
+        Map<Long, Integer> holds = new LinkedHashMap<>();
+        List<Long> failed = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> {
+            if (!flashSaleService.isActive(productId)) {
+                holds.put(productId, quantity);
+            } else if (flashSaleService.remaining(productId) < quantity) {
+                failed.add(productId);
+            }
+        });
+        Map<Long, Integer> onHand = products.values().stream()
+                .collect(Collectors.toMap(Product::getId, product -> product.getQuantity() == null ? 0 : product.getQuantity()));
+        failed.addAll(inventoryReservationService.setHolds(userId, holds, onHand));
+        if (!failed.isEmpty()) {
+            throw insufficientStock(failed, quantities, products, itemsByProduct);
+        }
+
+        quantities.forEach((productId, quantity) -> {
+            CartItem item = itemsByProduct.get(productId);
+            if (quantity == 0) {
+                if (item != null) {
+                    cart.getItems().removeIf(line -> line.getProduct().getId().equals(productId));
+                }
+            } else if (item != null) {
+                item.setQuantity(quantity);
+            } else {
+                cart.getItems().add(new CartItem(null, cart, products.get(productId), quantity));
+            }
+        });
+        return cartMapper.toDTO(cartRepository.save(cart));
+    }
+
+    private InsufficientStockException insufficientStock(List<Long> failed, Map<Long, Integer> quantities, Map<Long, Product> products,
+                                                         Map<Long, CartItem> itemsByProduct) {
+        List<InsufficientStockException.StockShortage> shortages = new ArrayList<>();
+        List<String> lines = new ArrayList<>();
+        for (Long productId : failed) {
+            Product product = products.get(productId);
+            CartItem item = itemsByProduct.get(productId);
+            // The user's own hold stays theirs, so it counts as available to them.
+            int available = flashSaleService.isActive(productId)
+                    ? (int) flashSaleService.remaining(productId)
+                    : inventoryReservationService.availableToSell(productId, product.getQuantity()) + (item == null ? 0 : item.getQuantity());
+            shortages.add(new InsufficientStockException.StockShortage(productId, product.getName(), quantities.get(productId), available));
+            lines.add(product.getName() + " (requested " + quantities.get(productId) + ", available " + available + ")");
+        }
+        return new InsufficientStockException("Not enough stock for: " + String.join("; ", lines), shortages);
+    }
+
     public CartDTO getCart(Long userId){
         Cart cart = cartRepository.findByUserId(userId)
                 .orElseThrow(()->new ResourceNotFoundException("Cart not found"));
 
         return cartMapper.toDTO(cart);
     }
+    @Transactional
     public void clearCart(Long userId){
         Cart cart = cartRepository.findByUserId(userId)
                 .orElseThrow(()->new ResourceNotFoundException("Cart not found"));
 
         cart.getItems().clear();
         cartRepository.save(cart);
+        inventoryReservationService.releaseAll(userId);
     }
 
     //update
+    @Transactional
     public void removeCartItem(Long userId, Long productId) {
         Cart cart = cartRepository.findByUserId(userId)
                 .orElseThrow(() -> new RuntimeException("Cart not found for user"));
@@ -75,6 +208,7 @@ public class CartService {
         cart.getItems().removeIf(item -> item.getProduct().getId().equals(productId));
 
         cartRepository.save(cart);
+        inventoryReservationService.release(userId, productId);
     }
 }
 
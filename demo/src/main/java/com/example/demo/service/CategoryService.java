@@ -17,6 +17,9 @@ import java.util.stream.Collectors;
 public class CategoryService {
     private final CategoryRepository categoryRepository;
     private final S3Service s3Service; // Injected S3Service
+    private final ProductService productService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ChangeStampService changeStampService;
 
     public CategoryDTO createCategory(CategoryDTO categoryDTO, MultipartFile image) throws IOException {
         Category category = new Category();
@@ -29,6 +32,7 @@ public class CategoryService {
         }
 
         Category savedCategory = categoryRepository.save(category);
+        changeStampService.bump(ChangeStampService.Resource.CATEGORIES);
         return toDto(savedCategory);
     }
 
@@ -54,6 +58,9 @@ public class CategoryService {
         }
 
         Category updatedCategory = categoryRepository.save(existingCategory);
+        productService.evictAllProducts();
+        productSearchIndex.reindexCategory(id);
+        changeStampService.bump(ChangeStampService.Resource.CATEGORIES);
         return toDto(updatedCategory);
     }
 
@@ -62,6 +69,8 @@ public class CategoryService {
             throw new ResourceNotFoundException("Category not found with ID: " + id);
         }
         categoryRepository.deleteById(id);
+        productService.evictAllProducts();
+        changeStampService.bump(ChangeStampService.Resource.CATEGORIES);
     }
 
     private CategoryDTO toDto(Category category) {
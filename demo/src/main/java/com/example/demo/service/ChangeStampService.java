@@ -0,0 +1,131 @@
+package com.example.demo.service;
+
+import com.example.demo.model.ChangeStamp;
+import com.example.demo.repositories.ChangeStampRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change stamps for the publicly cached resource families. The ETag of a response is derived
+ * from the in-memory stamp of its family alone, so a conditional GET is answered without any
+ * database call. A write bumps the stamps of the families it changes once its transaction has
+ * committed, in a short transaction of its own, so no write holds the stamp row while it runs.
+ * <p>
+ * The persisted rows seed the stamps on startup and carry bumps between instances: every
+ * instance re-reads them every change-stamps.refresh-interval-ms and keeps the higher version,
+ * so another instance's write shows up in this instance's ETags within that interval.
+ * Stock-only changes do not bump PRODUCTS; live stock is served by the uncached availability
+ * endpoint, and the catalog ETags are weak for that reason.
+ */
+@Service
+public class ChangeStampService {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeStampService.class);
+
+    public enum Resource {
+        PRODUCTS, CATEGORIES, HERO, REVIEWS, COMMENTS
+    }
+
+    private final ChangeStampRepository changeStampRepository;
+    private final TransactionTemplate bumpTransaction;
+    private final Map<Resource, AtomicLong> versions = new EnumMap<>(Resource.class);
+
+    public ChangeStampService(ChangeStampRepository changeStampRepository, PlatformTransactionManager transactionManager) {
+        this.changeStampRepository = changeStampRepository;
+        // Runs after the writer's commit, while its transaction is still bound to the thread
+        this.bumpTransaction = new TransactionTemplate(transactionManager);
+        this.bumpTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (Resource resource : Resource.values()) {
+            versions.put(resource, new AtomicLong());
+        }
+    }
+
+    @PostConstruct
+    public void createStamps() {
+        for (Resource resource : Resource.values()) {
+            if (!changeStampRepository.existsById(resource.name())) {
+                try {
+                    changeStampRepository.save(new ChangeStamp(resource.name(), 0));
+                } catch (DataIntegrityViolationException e) {
+                    // Another instance created it first
+                }
+            }
+        }
+        refresh();
+    }
+
+    /** Picks up the bumps of other instances. */
+    @Scheduled(fixedDelayString = "${change-stamps.refresh-interval-ms:5000}")
+    public void refresh() {
+        for (ChangeStamp stamp : changeStampRepository.findAll()) {
+            advance(Resource.valueOf(stamp.getResource()), stamp.getVersion());
+        }
+    }
+
+    /** Bumps the given families once the current transaction commits; nothing if it rolls back. */
+    @SuppressWarnings("unchecked")
+    public void bump(Resource... resources) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Set<Resource> bumped = EnumSet.noneOf(Resource.class);
+            Collections.addAll(bumped, resources);
+            persist(bumped);
+            return;
+        }
+        Set<Resource> pending = (Set<Resource>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<Resource> bound = EnumSet.noneOf(Resource.class);
+            TransactionSynchronizationManager.bindResource(this, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChangeStampService.this);
+                    if (status == STATUS_COMMITTED) {
+                        persist(bound);
+                    }
+                }
+            });
+            pending = bound;
+        }
+        Collections.addAll(pending, resources);
+    }
+
+    public String etag(Resource resource) {
+        return "W/\"" + resource.name().toLowerCase() + "-" + versions.get(resource).get() + "\"";
+    }
+
+    // EnumSet iterates in declaration order, so concurrent bumps lock the rows in the same order
+    private void persist(Set<Resource> resources) {
+        try {
+            bumpTransaction.executeWithoutResult(status -> {
+                for (Resource resource : resources) {
+                    changeStampRepository.increment(resource.name());
+                    advance(resource, changeStampRepository.findVersion(resource.name()).orElse(0L));
+                }
+            });
+        } catch (DataAccessException e) {
+            // This instance still stops matching old ETags; the others catch up on the next bump
+            resources.forEach(resource -> versions.get(resource).incrementAndGet());
+            logger.warn("Could not persist change stamps {}", resources, e);
+        }
+    }
+
+    private void advance(Resource resource, long version) {
+        versions.get(resource).accumulateAndGet(version, Math::max);
+    }
+}
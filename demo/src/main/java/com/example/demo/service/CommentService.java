@@ -22,6 +22,8 @@ public class CommentService {
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final CommentMapper commentMapper;
+    private final ProductService productService;
+    private final ChangeStampService changeStampService;
 
     public CommentDTO addComment(Long productId, Long userId, CommentDTO commentDTO){
         Product product = productRepository.findById(productId)
@@ -33,6 +35,8 @@ public class CommentService {
         comment.setProduct(product);
         comment.setUser(user);
         Comment savedComment = commentRepository.save(comment);
+        productService.evictProduct(productId);
+        changeStampService.bump(ChangeStampService.Resource.COMMENTS);
         return commentMapper.toDTO(savedComment);
 
     }
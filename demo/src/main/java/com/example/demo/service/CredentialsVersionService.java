@@ -0,0 +1,70 @@
+package com.example.demo.service;
+
+import com.example.demo.model.User;
+import com.example.demo.repositories.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Revocation for stateless tokens. Each token carries the user's credentials version from when
+ * it was issued; it is accepted only while that still matches. Current versions are cached per
+ * user for credentials.version-cache.ttl: a miss reads the version by primary key, and changes
+ * made through UserService on this instance (password, role, deletion) update the entry at once.
+ * A change made on another instance revokes the user's tokens here once the entry expires.
+ */
+@Service
+public class CredentialsVersionService {
+    private static final int DELETED = -1;
+
+    private final UserRepository userRepository;
+    private final Cache<Long, Integer> versions;
+
+    public CredentialsVersionService(UserRepository userRepository,
+                                     @Value("${credentials.version-cache.ttl:30s}") Duration ttl,
+                                     @Value("${credentials.version-cache.max-size:100000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        int current = versions.get(userId, id -> userRepository.findCredentialsVersionById(id).orElse(DELETED));
+        return current != DELETED && current == tokenVersion;
+    }
+
+    public static int versionOf(User user) {
+        return user.getCredentialsVersion() == null ? 0 : user.getCredentialsVersion();
+    }
+
+    /** Invalidates the user's tokens: the entity gets the next version, the cache follows on commit. */
+    public void bump(User user) {
+        int next = versionOf(user) + 1;
+        user.setCredentialsVersion(next);
+        publish(user.getId(), next);
+    }
+
+    public void revoke(Long userId) {
+        publish(userId, DELETED);
+    }
+
+    private void publish(Long userId, int version) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.put(userId, version);
+                }
+            });
+        } else {
+            versions.put(userId, version);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.EmailOutboxStatsDTO;
+import com.example.demo.model.OutboxEmail;
+import com.example.demo.repositories.OutboxEmailRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the email outbox. Each poll claims due rows in batches (SENDING plus a lease) and hands
+ * every batch to a bounded worker pool; a batch goes out over a single SMTP connection. Failed
+ * messages are retried with exponential backoff and marked FAILED after the last attempt.
+ * Delivery is at-least-once: a batch interrupted by a crash is re-sent once its lease expires.
+ */
+@Service
+public class EmailOutboxWorker {
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxWorker.class);
+    private static final List<OutboxEmail.Status> UNSENT = List.of(OutboxEmail.Status.PENDING, OutboxEmail.Status.SENDING);
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private final OutboxEmailRepository outboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore freeWorkers;
+    private final int workers;
+
+    @Value("${spring.mail.from}")
+    private String fromEmail;
+    @Value("${email-outbox.batch-size:50}")
+    private int batchSize;
+    @Value("${email-outbox.max-attempts:8}")
+    private int maxAttempts;
+    @Value("${email-outbox.initial-backoff:30s}")
+    private Duration initialBackoff;
+    @Value("${email-outbox.retention:7d}")
+    private Duration retention;
+
+    public EmailOutboxWorker(OutboxEmailRepository outboxRepository,
+                             JavaMailSender mailSender,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${email-outbox.workers:2}") int workers) {
+        this.outboxRepository = outboxRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = workers;
+        this.freeWorkers = new Semaphore(workers);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers), runnable -> {
+                    Thread thread = new Thread(runnable, "email-outbox-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /** Claims one batch per idle worker; unclaimed rows wait for the next poll. */
+    @Scheduled(fixedDelayString = "${email-outbox.poll-interval-ms:2000}")
+    public void dispatch() {
+        while (freeWorkers.tryAcquire()) {
+            List<OutboxEmail> batch = claim();
+            if (batch.isEmpty()) {
+                freeWorkers.release();
+                return;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        send(batch);
+                    } finally {
+                        freeWorkers.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down: the claimed rows are retried when their lease expires.
+                freeWorkers.release();
+                return;
+            }
+        }
+    }
+
+    @Scheduled(cron = "${email-outbox.purge-cron:0 30 3 * * *}")
+    public void purgeSent() {
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxRepository.deleteByStatusCreatedBefore(OutboxEmail.Status.SENT, Instant.now().minus(retention)));
+        logger.info("Purged {} sent emails from the outbox", deleted);
+    }
+
+    public EmailOutboxStatsDTO getStats() {
+        Map<OutboxEmail.Status, Long> counts = new EnumMap<>(OutboxEmail.Status.class);
+        for (Object[] row : outboxRepository.countByStatus()) {
+            counts.put((OutboxEmail.Status) row[0], (Long) row[1]);
+        }
+        return new EmailOutboxStatsDTO(
+                counts.getOrDefault(OutboxEmail.Status.PENDING, 0L),
+                counts.getOrDefault(OutboxEmail.Status.SENDING, 0L),
+                counts.getOrDefault(OutboxEmail.Status.SENT, 0L),
+                counts.getOrDefault(OutboxEmail.Status.FAILED, 0L),
+                outboxRepository.findOldestCreatedAt(UNSENT),
+                workers - freeWorkers.availablePermits());
+    }
+
+    private List<OutboxEmail> claim() {
+        List<OutboxEmail> batch = transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<OutboxEmail> due = outboxRepository.findDueForUpdate(UNSENT, now, PageRequest.of(0, batchSize));
+            due.forEach(email -> {
+                email.setStatus(OutboxEmail.Status.SENDING);
+                email.setNextAttemptAt(now.plus(LEASE));
+            });
+            return due;
+        });
+        return batch == null ? List.of() : batch;
+    }
+
+    private void send(List<OutboxEmail> batch) {
+        Map<SimpleMailMessage, Long> idsByMessage = new IdentityHashMap<>();
+        List<SimpleMailMessage> messages = new ArrayList<>(batch.size());
+        for (OutboxEmail email : batch) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(fromEmail);
+            message.setTo(email.getRecipient());
+            message.setSubject(email.getSubject());
+            message.setText(email.getBody());
+            messages.add(message);
+            idsByMessage.put(message, email.getId());
+        }
+
+        Map<Long, String> errors = new HashMap<>();
+        try {
+            // JavaMailSenderImpl sends the whole array over one connection.
+            mailSender.send(messages.toArray(new SimpleMailMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                batch.forEach(email -> errors.put(email.getId(), e.getMessage()));
+            } else {
+                e.getFailedMessages().forEach((message, cause) -> {
+                    Long id = idsByMessage.get(message);
+                    if (id != null) {
+                        errors.put(id, cause.getMessage());
+                    }
+                });
+            }
+        } catch (MailException e) {
+            batch.forEach(email -> errors.put(email.getId(), e.getMessage()));
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Instant now = Instant.now();
+            Map<Long, OutboxEmail> current = outboxRepository.findAllById(idsByMessage.values()).stream()
+                    .collect(Collectors.toMap(OutboxEmail::getId, Function.identity()));
+            current.values().forEach(email -> {
+                String error = errors.get(email.getId());
+                email.setAttempts(email.getAttempts() + 1);
+                if (error == null) {
+                    email.setStatus(OutboxEmail.Status.SENT);
+                    email.setSentAt(now);
+                    email.setLastError(null);
+                    return;
+                }
+                email.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+                if (email.getAttempts() >= maxAttempts) {
+                    email.setStatus(OutboxEmail.Status.FAILED);
+                    logger.error("Giving up on email {} to {} after {} attempts: {}", email.getId(), email.getRecipient(), email.getAttempts(), error);
+                } else {
+                    email.setStatus(OutboxEmail.Status.PENDING);
+                    email.setNextAttemptAt(now.plus(backoff(email.getAttempts())));
+                }
+            });
+        });
+        if (!errors.isEmpty()) {
+            logger.warn("{} of {} outbox emails failed and will be retried", errors.size(), batch.size());
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+}
@@ -1,45 +1,35 @@
 package com.example.demo.service;
 
+import com.example.demo.model.OutboxEmail;
 import com.example.demo.model.Order;
 import com.example.demo.model.User;
+import com.example.demo.repositories.OutboxEmailRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+/**
+ * Queues transactional emails in the outbox. Each message is written in the caller's transaction,
+ * so it is sent only if that transaction commits, and the caller never waits on SMTP;
+ * EmailOutboxWorker does the actual sending.
+ */
 @Service
 @RequiredArgsConstructor
 public class EmailService {
-    private final JavaMailSender mailSender;
-
-    @Value("${spring.mail.from}")
-    private String fromEmail;
+    private final OutboxEmailRepository outboxEmailRepository;
 
     public void sendOrderConfirmation(Order order){
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(order.getUser().getEmail());
-        message.setSubject("Order confirmation");
-        message.setText("Your order has been confirmed. Order ID " + order.getId());
-        mailSender.send(message);
+        enqueue(order.getUser().getEmail(), "Order confirmation", "Your order has been confirmed. Order ID " + order.getId());
     }
 
     public void sendConfirmationCode(User user){
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(user.getEmail());
-        message.setSubject("Confirm your email");
-        message.setText("Please confirm your email by entering this code " + user.getConfirmationCode());
-        mailSender.send(message);
+        enqueue(user.getEmail(), "Confirm your email", "Please confirm your email by entering this code " + user.getConfirmationCode());
     }
 
     public void sendPasswordResetEmail(User user, String resetLink) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(user.getEmail());
-        message.setSubject("Password Reset Request");
-        message.setText("To reset your password, please click the link below:\n" + resetLink);
-        mailSender.send(message);
+        enqueue(user.getEmail(), "Password Reset Request", "To reset your password, please click the link below:\n" + resetLink);
+    }
+
+    private void enqueue(String recipient, String subject, String body) {
+        outboxEmailRepository.save(OutboxEmail.pending(recipient, subject, body));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,272 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.FlashSaleDTO;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.FlashSale;
+import com.example.demo.model.Product;
+import com.example.demo.repositories.FlashSaleRepository;
+import com.example.demo.repositories.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in flash-sale mode for hot products. While a product is on sale its stock lives in a
+ * {@link StripedStockCounter} and checkouts take from it without touching the product row;
+ * committed sales accumulate per product and a write-behind flush applies them to the row
+ * (and to FlashSale.flushedQuantity) in one short transaction per interval.
+ * <p>
+ * After a crash the counters are rebuilt from the orders themselves, while the bean is created
+ * and so before the web server takes requests: remaining stock is the base stock minus every
+ * unit taken through the flash path since activation (OrderItem.flashSale), and whatever of that
+ * was not flushed yet is queued again. The flush never takes a row below zero. The counters are
+ * per instance, like the rest of the in-memory stock state.
+ * <p>
+ * Ending a sale is one transaction under the product row lock: the counter goes away, checkouts
+ * still taking from it are waited out, every unit sold since activation and not yet flushed is
+ * applied to the row, and only then is the sale row deleted. Checkouts that already see the sale
+ * as ended queue on the row lock and find the row up to date.
+ */
+@Service
+public class FlashSaleService {
+    private static final Logger logger = LoggerFactory.getLogger(FlashSaleService.class);
+
+    private static final String FLUSH_PRODUCT = "update product set quantity = quantity - ? where id = ? and quantity >= ?";
+    private static final String CLAMP_PRODUCT = "update product set quantity = 0 where id = ?";
+    private static final String FLUSH_SALE = "update flash_sales set flushed_quantity = flushed_quantity + ? where product_id = ?";
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final FlashSaleRepository flashSaleRepository;
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate flushTransaction;
+    private final Map<Long, StripedStockCounter> counters = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> pendingFlush = new ConcurrentHashMap<>();
+    // Checkouts between taking from a counter and the end of their transaction
+    private final Map<Long, AtomicInteger> openTakes = new ConcurrentHashMap<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public FlashSaleService(FlashSaleRepository flashSaleRepository,
+                            ProductRepository productRepository,
+                            ProductService productService,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager) {
+        this.flashSaleRepository = flashSaleRepository;
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    // Runs during startup, before any checkout can see a flash product as inactive
+    @PostConstruct
+    public void recover() {
+        for (FlashSale sale : flashSaleRepository.findAll()) {
+            long sold = flashSaleRepository.sumOrderedSince(sale.getProductId(), sale.getActivatedAt());
+            counters.put(sale.getProductId(), new StripedStockCounter(Math.max(0, sale.getBaseStock() - sold)));
+            long unflushed = sold - sale.getFlushedQuantity();
+            if (unflushed > 0) {
+                pending(sale.getProductId()).addAndGet(unflushed);
+            }
+            logger.info("Recovered flash sale for product {}: {} sold, {} not yet flushed", sale.getProductId(), sold, unflushed);
+        }
+    }
+
+    public boolean isActive(Long productId) {
+        return counters.containsKey(productId);
+    }
+
+    public long remaining(Long productId) {
+        StripedStockCounter counter = counters.get(productId);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Takes the requested units of flash-sale products from their counters. Returns the ids that
+     * could not be covered; units already taken go back to the counters if the surrounding
+     * transaction rolls back, and are queued for the write-behind flush once it commits.
+     */
+    public List<Long> take(Map<Long, Integer> requested) {
+        List<Long> failed = new ArrayList<>();
+        requested.forEach((productId, quantity) -> {
+            // Counted before the counter is read, so deactivate either waits for this take or it fails here
+            AtomicInteger open = openTakes.computeIfAbsent(productId, id -> new AtomicInteger());
+            open.incrementAndGet();
+            StripedStockCounter counter = counters.get(productId);
+            if (counter == null || !counter.tryTake(quantity)) {
+                open.decrementAndGet();
+                failed.add(productId);
+                return;
+            }
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status == STATUS_COMMITTED) {
+                            pending(productId).addAndGet(quantity);
+                        } else {
+                            counter.add(quantity);
+                        }
+                        open.decrementAndGet();
+                    }
+                });
+            } else {
+                pending(productId).addAndGet(quantity);
+                open.decrementAndGet();
+            }
+        });
+        return failed;
+    }
+
+    public List<FlashSaleDTO> getFlashSales() {
+        return flashSaleRepository.findAll().stream().map(this::toDTO).toList();
+    }
+
+    /** Puts a product on flash sale with its current quantity as the sale stock. */
+    @Transactional
+    public FlashSaleDTO activate(Long productId) {
+        if (flashSaleRepository.existsById(productId)) {
+            throw new IllegalStateException("Product " + productId + " is already on flash sale");
+        }
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+        // Waits out in-flight row-level checkouts so the base stock is exact.
+        entityManager.lock(product, LockModeType.PESSIMISTIC_WRITE);
+        entityManager.refresh(product);
+        int baseStock = product.getQuantity() == null ? 0 : product.getQuantity();
+
+        FlashSale sale = flashSaleRepository.save(new FlashSale(productId, baseStock, LocalDateTime.now(), 0L));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                counters.put(productId, new StripedStockCounter(baseStock));
+            }
+        });
+        return new FlashSaleDTO(productId, baseStock, baseStock, 0, sale.getActivatedAt());
+    }
+
+    /**
+     * Ends the sale and writes every unit sold through it back to the product row, in one
+     * transaction. Synchronized with the flush, so no flushed batch is applied twice. If anything
+     * fails the sale stays active and its row stays in place.
+     */
+    public synchronized void deactivate(Long productId) {
+        if (!flashSaleRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("No flash sale for product: " + productId);
+        }
+        StripedStockCounter counter = counters.get(productId);
+        try {
+            flushTransaction.executeWithoutResult(status -> {
+                Product product = productRepository.findById(productId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+                // Row-level checkouts that see the sale as ended wait here until the row is up to date.
+                entityManager.lock(product, LockModeType.PESSIMISTIC_WRITE);
+                counters.remove(productId);
+                awaitOpenTakes(productId);
+
+                FlashSale sale = flashSaleRepository.findById(productId)
+                        .orElseThrow(() -> new ResourceNotFoundException("No flash sale for product: " + productId));
+                // The orders are the record of what was sold, including units still queued in pendingFlush.
+                long unflushed = flashSaleRepository.sumOrderedSince(productId, sale.getActivatedAt()) - sale.getFlushedQuantity();
+                if (unflushed > 0 && jdbcTemplate.update(FLUSH_PRODUCT, unflushed, productId, unflushed) == 0) {
+                    logger.error("Flash sale end for product {} applies {} units beyond its stock; setting it to 0", productId, unflushed);
+                    jdbcTemplate.update(CLAMP_PRODUCT, productId);
+                }
+                flashSaleRepository.delete(sale);
+                productService.evictStock(productId);
+            });
+        } catch (RuntimeException e) {
+            if (counter != null) {
+                counters.putIfAbsent(productId, counter);
+            }
+            throw e;
+        }
+        pendingFlush.remove(productId);
+        openTakes.remove(productId);
+    }
+
+    private void awaitOpenTakes(Long productId) {
+        AtomicInteger open = openTakes.get(productId);
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (open != null && open.get() > 0) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Checkouts of product " + productId + " are still completing, try again");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while ending the flash sale of product " + productId);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${flash-sale.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        pendingFlush.forEach((productId, pending) -> {
+            long units = pending.getAndSet(0);
+            if (units > 0) {
+                batch.add(new Object[] {units, productId});
+            }
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            flushTransaction.executeWithoutResult(status -> {
+                int[] counts = jdbcTemplate.batchUpdate(FLUSH_PRODUCT, batch.stream()
+                        .map(row -> new Object[] {row[0], row[1], row[0]})
+                        .toList());
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) {
+                        // The row holds less than was sold from the counter: never go negative, but say so.
+                        Long productId = (Long) batch.get(i)[1];
+                        logger.error("Flash sale flush of {} units for product {} exceeds its stock; setting it to 0", batch.get(i)[0], productId);
+                        jdbcTemplate.update(CLAMP_PRODUCT, productId);
+                    }
+                }
+                jdbcTemplate.batchUpdate(FLUSH_SALE, batch);
+            });
+        } catch (RuntimeException e) {
+            // Nothing was written; put the units back for the next attempt.
+            batch.forEach(row -> pending((Long) row[1]).addAndGet((Long) row[0]));
+            logger.warn("Flash sale flush failed, will retry", e);
+            return;
+        }
+        batch.forEach(row -> productService.evictStock((Long) row[1]));
+    }
+
+    private AtomicLong pending(Long productId) {
+        return pendingFlush.computeIfAbsent(productId, id -> new AtomicLong());
+    }
+
+    private FlashSaleDTO toDTO(FlashSale sale) {
+        AtomicLong pending = pendingFlush.get(sale.getProductId());
+        return new FlashSaleDTO(sale.getProductId(), sale.getBaseStock(), remaining(sale.getProductId()),
+                pending == null ? 0 : pending.get(), sale.getActivatedAt());
+    }
+}
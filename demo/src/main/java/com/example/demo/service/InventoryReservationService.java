@@ -0,0 +1,230 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.InsufficientStockException;
+import com.example.demo.model.StockReservation;
+import com.example.demo.repositories.StockReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TTL holds on stock for cart lines. Product.quantity stays the physical on-hand stock; a hold
+ * only lowers the available-to-sell figure until it is converted into an order, released from
+ * the cart, or swept after expiry.
+ * <p>
+ * The units held per product are kept in an in-memory counter (the sum of every hold row this
+ * instance knows of), so availability is a subtraction instead of a SUM over the table. Counter
+ * changes made inside a transaction are undone if it rolls back; the counters are rebuilt from
+ * the table on startup. Cart paths read the user's hold rows with a row lock and the sweep skips
+ * locked rows, so a hold is never released by both and its units leave the counter once. The conditional stock decrement at checkout remains the hard guard
+ * against overselling on-hand stock.
+ */
+@Service
+public class InventoryReservationService {
+    private static final Logger logger = LoggerFactory.getLogger(InventoryReservationService.class);
+    private static final int SWEEP_BATCH_SIZE = 500;
+
+    private final StockReservationRepository reservationRepository;
+    private final TransactionTemplate sweepTransaction;
+    private final Map<Long, Integer> reserved = new ConcurrentHashMap<>();
+
+    @Value("${cart.reservation.ttl:15m}")
+    private Duration ttl;
+
+    public InventoryReservationService(StockReservationRepository reservationRepository,
+                                       PlatformTransactionManager transactionManager) {
+        this.reservationRepository = reservationRepository;
+        this.sweepTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCounters() {
+        reserved.clear();
+        for (Object[] row : reservationRepository.sumQuantitiesByProduct()) {
+            reserved.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        logger.info("Loaded stock reservations for {} products", reserved.size());
+    }
+
+    public int getReserved(Long productId) {
+        return reserved.getOrDefault(productId, 0);
+    }
+
+    public int availableToSell(Long productId, Integer onHand) {
+        return Math.max(0, (onHand == null ? 0 : onHand) - getReserved(productId));
+    }
+
+    /**
+     * Sets the user's hold on a product to quantity and renews its TTL. Fails with
+     * InsufficientStockException when the stock not held by other carts cannot cover it.
+     */
+    @Transactional
+    public void hold(Long userId, Long productId, int quantity, Integer onHand) {
+        StockReservation reservation = reservationRepository.findByUserIdAndProductIdForUpdate(userId, productId)
+                .orElseGet(() -> new StockReservation(null, userId, productId, 0, null));
+        int delta = quantity - reservation.getQuantity();
+        int stock = onHand == null ? 0 : onHand;
+        adjust(productId, delta, stock);
+
+        reservation.setQuantity(quantity);
+        reservation.setExpiresAt(Instant.now().plus(ttl));
+        reservationRepository.save(reservation);
+    }
+
+    /**
+     * Batch form of hold: sets the user's hold on each product to the given quantity, releasing
+     * it when the quantity is 0, with one read of the user's holds. Returns the ids of the products
+     * whose stock could not cover the new quantity; their holds are left unchanged and the
+     * caller is expected to roll back.
+     */
+    @Transactional
+    public List<Long> setHolds(Long userId, Map<Long, Integer> quantities, Map<Long, Integer> onHandByProduct) {
+        Map<Long, StockReservation> existing = reservationRepository.findByUserIdForUpdate(userId).stream()
+                .collect(Collectors.toMap(StockReservation::getProductId, Function.identity()));
+        Instant expiresAt = Instant.now().plus(ttl);
+        List<Long> failed = new ArrayList<>();
+        List<StockReservation> changed = new ArrayList<>();
+        List<StockReservation> released = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> {
+            StockReservation reservation = existing.get(productId);
+            int held = reservation == null ? 0 : reservation.getQuantity();
+            try {
+                Integer onHand = onHandByProduct.get(productId);
+                adjust(productId, quantity - held, onHand == null ? 0 : onHand);
+            } catch (InsufficientStockException e) {
+                failed.add(productId);
+                return;
+            }
+            if (quantity == 0) {
+                if (reservation != null) {
+                    released.add(reservation);
+                }
+                return;
+            }
+            StockReservation updated = reservation == null ? new StockReservation(null, userId, productId, 0, null) : reservation;
+            updated.setQuantity(quantity);
+            updated.setExpiresAt(expiresAt);
+            changed.add(updated);
+        });
+        reservationRepository.deleteAllInBatch(released);
+        reservationRepository.saveAll(changed);
+        return failed;
+    }
+
+    @Transactional
+    public void release(Long userId, Long productId) {
+        reservationRepository.findByUserIdAndProductIdForUpdate(userId, productId).ifPresent(reservation -> {
+            adjust(productId, -reservation.getQuantity(), null);
+            reservationRepository.delete(reservation);
+        });
+    }
+
+    @Transactional
+    public void releaseAll(Long userId) {
+        List<StockReservation> reservations = reservationRepository.findByUserIdForUpdate(userId);
+        reservations.forEach(reservation -> adjust(reservation.getProductId(), -reservation.getQuantity(), null));
+        reservationRepository.deleteAllInBatch(reservations);
+    }
+
+    /**
+     * Converts the user's holds into an order: each hold is consumed, and any quantity beyond
+     * the hold must fit in the stock not held by other carts. Returns the ids of the products
+     * that cannot be covered; the caller rolls back, which restores the consumed holds.
+     */
+    @Transactional
+    public List<Long> convert(Long userId, Map<Long, Integer> requested, Map<Long, Integer> onHandByProduct) {
+        List<StockReservation> reservations = reservationRepository.findByUserIdForUpdate(userId);
+        List<StockReservation> consumed = new ArrayList<>();
+        for (StockReservation reservation : reservations) {
+            if (requested.containsKey(reservation.getProductId())) {
+                adjust(reservation.getProductId(), -reservation.getQuantity(), null);
+                consumed.add(reservation);
+            }
+        }
+        reservationRepository.deleteAllInBatch(consumed);
+
+        List<Long> uncovered = new ArrayList<>();
+        requested.forEach((productId, quantity) -> {
+            if (availableToSell(productId, onHandByProduct.get(productId)) < quantity) {
+                uncovered.add(productId);
+            }
+        });
+        return uncovered;
+    }
+
+    /** Releases expired holds in batches, each batch in its own short transaction. */
+    @Scheduled(fixedDelayString = "${cart.reservation.sweep-interval-ms:30000}")
+    public void releaseExpired() {
+        int released = 0;
+        while (true) {
+            List<StockReservation> batch = sweepTransaction.execute(status -> {
+                List<StockReservation> expired = reservationRepository.findExpiredForUpdate(Instant.now(), PageRequest.of(0, SWEEP_BATCH_SIZE));
+                reservationRepository.deleteAllInBatch(expired);
+                return expired;
+            });
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            // Committed: the rows are gone, so their units leave the counters.
+            batch.forEach(reservation -> adjust(reservation.getProductId(), -reservation.getQuantity(), null));
+            released += batch.size();
+            if (batch.size() < SWEEP_BATCH_SIZE) {
+                break;
+            }
+        }
+        if (released > 0) {
+            logger.info("Released {} expired stock reservations", released);
+        }
+    }
+
+    /**
+     * Applies delta to the product's counter atomically. When onHand is given and units are
+     * added, the counter may not exceed it. Inside a transaction the change is reverted on rollback.
+     */
+    private void adjust(Long productId, int delta, Integer onHand) {
+        if (delta == 0) {
+            return;
+        }
+        applyDelta(productId, delta, onHand);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        applyDelta(productId, -delta, null);
+                    }
+                }
+            });
+        }
+    }
+
+    private void applyDelta(Long productId, int delta, Integer onHand) {
+        reserved.compute(productId, (id, current) -> {
+            int held = current == null ? 0 : current;
+            if (delta > 0 && onHand != null && onHand - held < delta) {
+                throw new InsufficientStockException("Not enough available: only " + Math.max(0, onHand - held) + " more can be reserved");
+            }
+            int updated = held + delta;
+            return updated <= 0 ? null : updated;
+        });
+    }
+}
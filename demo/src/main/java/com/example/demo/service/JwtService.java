@@ -1,26 +1,70 @@
 package com.example.demo.service;
 
+import com.example.demo.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
-import java.util.function.Function;
 
 @Service
 public class JwtService {
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLE_CLAIM = "role";
+    static final String CREDENTIALS_VERSION_CLAIM = "cv";
+    private static final long MAX_VERIFIED_TOKENS = 10_000;
+
     @Value("${jwt.secret}")
     private String secret;
     @Value("${jwt.expiration}")
     private Long expiration;
+    @Autowired
+    private CredentialsVersionService credentialsVersionService;
+
+    // Recently verified tokens by SHA-256; each entry lives until its token's exp claim
+    private final Cache<String, VerifiedToken> verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(MAX_VERIFIED_TOKENS)
+            .expireAfter(new Expiry<String, VerifiedToken>() {
+                @Override
+                public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                    return Math.max(0, Duration.between(Instant.now(), token.expiresAt()).toNanos());
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+
+                @Override
+                public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
 
     public String generateToken(UserDetails userDetails){
         Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof User user) {
+            claims.put(USER_ID_CLAIM, user.getId());
+            claims.put(ROLE_CLAIM, user.getRole().name());
+            claims.put(CREDENTIALS_VERSION_CLAIM, CredentialsVersionService.versionOf(user));
+        }
         return createToken(claims, userDetails.getUsername());
     }
     private String createToken(Map<String, Object> claims, String subject){
@@ -33,27 +77,80 @@ public class JwtService {
                 .compact();
     }
 
-    public Boolean validateToken(String token, UserDetails userDetails){
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    /**
+     * Builds the principal from the token alone: id, email and role come from the verified
+     * claims, so no user row is read. Returns null when the token is invalid, expired, issued
+     * before these claims existed, or revoked by a credentials change.
+     */
+    public User authenticate(String token){
+        VerifiedToken verified = verify(token);
+        if (verified == null || verified.userId() == null) {
+            return null;
+        }
+        if (!credentialsVersionService.isCurrent(verified.userId(), verified.credentialsVersion())) {
+            return null;
+        }
+        User user = new User();
+        user.setId(verified.userId());
+        user.setEmail(verified.email());
+        user.setRole(verified.role());
+        user.setCredentialsVersion(verified.credentialsVersion());
+        return user;
     }
 
-    public String extractUsername (String token){
-        return extractClaim(token, Claims::getSubject);
+    /**
+     * Verifies the signature and expiry once per token: later calls with the same token are a
+     * hash and a cache lookup until the token expires. Returns null for an invalid or expired
+     * token; those are never cached.
+     */
+    public VerifiedToken verify(String token){
+        String key = hash(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            return cached.expiresAt().isAfter(Instant.now()) ? cached : null;
+        }
+        Claims claims;
+        try {
+            claims = extractAllClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        if (claims.getExpiration() == null) {
+            return null;
+        }
+        VerifiedToken verified = VerifiedToken.of(claims);
+        verifiedTokens.put(key, verified);
+        return verified;
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver){
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
     private Claims extractAllClaims(String token){
         return Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
     }
 
-    private Boolean isTokenExpired(String token){
-        return extractExpiration(token).before(new Date());
+    // The cache holds digests, not the bearer tokens themselves.
+    private static String hash(String token){
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
-    private Date extractExpiration(String token){
-        return extractClaim(token, Claims::getExpiration);
+
+    /**
+     * The claims of a token whose signature and expiry have been checked. userId, role and
+     * credentialsVersion are null for tokens issued before those claims existed.
+     */
+    public record VerifiedToken(String email, Long userId, User.Role role, Integer credentialsVersion, Instant expiresAt) {
+        static VerifiedToken of(Claims claims) {
+            Number userId = claims.get(USER_ID_CLAIM, Number.class);
+            String role = claims.get(ROLE_CLAIM, String.class);
+            Number version = claims.get(CREDENTIALS_VERSION_CLAIM, Number.class);
+            if (userId == null || role == null || version == null) {
+                return new VerifiedToken(claims.getSubject(), null, null, null, claims.getExpiration().toInstant());
+            }
+            return new VerifiedToken(claims.getSubject(), userId.longValue(), User.Role.valueOf(role), version.intValue(),
+                    claims.getExpiration().toInstant());
+        }
     }
-}
\ No newline at end of file
+}
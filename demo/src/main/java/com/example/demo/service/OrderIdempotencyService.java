@@ -0,0 +1,189 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.OrderDTO;
+import com.example.demo.exception.InvalidRequestException;
+import com.example.demo.exception.RequestInProgressException;
+import com.example.demo.model.IdempotencyKey;
+import com.example.demo.repositories.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Makes POST /api/orders safe to retry. The first request with a given Idempotency-Key creates
+ * the order and stores its response under the key, in the same transaction; later requests
+ * with the key get that response back without running checkout again. Duplicates arriving
+ * while the first request is still running wait for its outcome instead of racing it; past
+ * idempotency.wait-timeout they get 409 with Retry-After and should retry with the same key.
+ * <p>
+ * The in-flight map only covers this instance; across instances the unique (user, key)
+ * constraint makes the loser roll back and replay the winner's response.
+ */
+@Service
+public class OrderIdempotencyService {
+    private static final Logger logger = LoggerFactory.getLogger(OrderIdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int PURGE_BATCH_SIZE = 500;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${idempotency.ttl:24h}")
+    private Duration ttl;
+    @Value("${idempotency.wait-timeout:30s}")
+    private Duration waitTimeout;
+
+    public OrderIdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                                   OrderService orderService,
+                                   ObjectMapper objectMapper,
+                                   PlatformTransactionManager transactionManager) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.orderService = orderService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public OrderDTO createOrder(Long userId, String key, String address, String phoneNumber) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidRequestException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = hash(address, phoneNumber);
+        String slot = userId + ":" + key;
+
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(slot, mine);
+        if (running != null) {
+            checkSameRequest(running.requestHash(), requestHash);
+            return await(running.result());
+        }
+        try {
+            OrderDTO order = replay(userId, key, requestHash).orElseGet(() -> execute(userId, key, requestHash, address, phoneNumber));
+            mine.result().complete(order);
+            return order;
+        } catch (RuntimeException e) {
+            mine.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(slot, mine);
+        }
+    }
+
+    /** Deletes expired keys in batches, each batch in its own short transaction. */
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        int purged = 0;
+        while (true) {
+            List<Long> ids = idempotencyKeyRepository.findExpiredIds(Instant.now(), PageRequest.of(0, PURGE_BATCH_SIZE));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer deleted = transactionTemplate.execute(status -> idempotencyKeyRepository.deleteByIdIn(ids));
+            purged += deleted == null ? 0 : deleted;
+            if (ids.size() < PURGE_BATCH_SIZE) {
+                break;
+            }
+        }
+        if (purged > 0) {
+            logger.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private OrderDTO execute(Long userId, String key, String requestHash, String address, String phoneNumber) {
+        try {
+            return transactionTemplate.execute(status -> {
+                Instant now = Instant.now();
+                idempotencyKeyRepository.deleteExpired(userId, key, now);
+                OrderDTO order = orderService.createOrder(userId, address, phoneNumber);
+                idempotencyKeyRepository.save(new IdempotencyKey(null, userId, key, requestHash, order.getId(), serialize(order), now.plus(ttl)));
+                return order;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another instance stored the key first; this order was rolled back.
+            return replay(userId, key, requestHash).orElseThrow(() -> e);
+        }
+    }
+
+    private Optional<OrderDTO> replay(Long userId, String key, String requestHash) {
+        return idempotencyKeyRepository.findActive(userId, key, Instant.now()).map(stored -> {
+            checkSameRequest(stored.getRequestHash(), requestHash);
+            return deserialize(stored.getResponse());
+        });
+    }
+
+    private OrderDTO await(CompletableFuture<OrderDTO> result) {
+        try {
+            return result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // A duplicate gets the same outcome as the request it duplicates.
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Order request failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new RequestInProgressException("A request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the original request");
+        }
+    }
+
+    private static void checkSameRequest(String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new InvalidRequestException("Idempotency-Key was already used for a different request");
+        }
+    }
+
+    private String serialize(OrderDTO order) {
+        try {
+            return objectMapper.writeValueAsString(order);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store order response", e);
+        }
+    }
+
+    private OrderDTO deserialize(String response) {
+        try {
+            return objectMapper.readValue(response, OrderDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored order response", e);
+        }
+    }
+
+    private static String hash(String address, String phoneNumber) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest((address + "\n" + phoneNumber).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<OrderDTO> result) {
+    }
+}
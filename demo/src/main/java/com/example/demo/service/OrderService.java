@@ -1,8 +1,13 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.CartDTO;
+import com.example.demo.dto.CursorPageDTO;
 import com.example.demo.dto.OrderDTO;
+import com.example.demo.dto.OrderStatusUpdateResultDTO;
+import com.example.demo.dto.OrderSummaryDTO;
 import com.example.demo.exception.InsufficientStockException;
+import com.example.demo.exception.InvalidCursorException;
+import com.example.demo.exception.InvalidRequestException;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.mapper.CartMapper;
 import com.example.demo.mapper.OrderMapper;
@@ -10,21 +15,40 @@ import com.example.demo.model.*;
 import com.example.demo.repositories.OrderRepository;
 import com.example.demo.repositories.ProductRepository;
 import com.example.demo.repositories.UserRepository;
-import jakarta.persistence.EntityNotFoundException;
+import com.example.demo.specification.OrderSpecification;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.mail.MailException;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
+    private static final int MAX_BULK_STATUS_ORDERS = 5000;
+    private static final int STATUS_CHUNK_SIZE = 500;
+
     private final Logger logger = LoggerFactory.getLogger(OrderService.class);
 
     private final OrderRepository orderRepository;
@@ -34,6 +58,11 @@ public class OrderService {
     private final EmailService emailService;
     private final OrderMapper orderMapper;
     private final CartMapper cartMapper;
+    private final ProductService productService;
+    private final InventoryReservationService inventoryReservationService;
+    private final FlashSaleService flashSaleService;
+    private final OrderSpecification orderSpecification;
+    private final SalesRollupService salesRollupService;
 
     @Transactional
     public OrderDTO createOrder(Long userId, String address, String phoneNumber){
@@ -61,44 +90,214 @@ public class OrderService {
 
         Order savedOrder = orderRepository.save(order);
         cartService.clearCart(userId);
+        salesRollupService.recordOrder(savedOrder);
 
-        try{
-            emailService.sendOrderConfirmation(savedOrder);
-        }catch (MailException e){
-            logger.error("Failed to send order confirmation email for order ID "+savedOrder.getId(), e);
-        }
+        emailService.sendOrderConfirmation(savedOrder);
         return orderMapper.toDTO(savedOrder);
     }
 
     private List<OrderItem> createOrderItems(Cart cart, Order order){
-        return cart.getItems().stream().map(cartItem -> {
-            Product product = productRepository.findById(cartItem.getProduct().getId())
-                    .orElseThrow(()-> new EntityNotFoundException("Product not found with id: "+cartItem.getProduct().getId()));
+        // Lines of the same product are merged; the sorted map also fixes the row lock order.
+        SortedMap<Long, Integer> requested = new TreeMap<>();
+        for (CartItem cartItem : cart.getItems()) {
+            requested.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
+        }
 
-            if(product.getQuantity() == null){
-                throw new IllegalStateException("Product quantity is not set for product "+product.getName());
-            }
-            if(product.getQuantity() < cartItem.getQuantity()){
-                throw new InsufficientStockException("Not enough stock for product "+product.getName());
-            }
-            product.setQuantity(product.getQuantity() - cartItem.getQuantity());
-            productRepository.save(product);
+        Map<Long, Product> products = productRepository.findAllById(requested.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        Map<Long, Integer> onHand = products.values().stream()
+                .collect(Collectors.toMap(Product::getId, product -> product.getQuantity() == null ? 0 : product.getQuantity()));
 
-            return new OrderItem(null, order, product, cartItem.getQuantity(), product.getPrice());
+        // Flash-sale products are taken from their in-memory counters and never lock the product row.
+        SortedMap<Long, Integer> flashSale = new TreeMap<>();
+        SortedMap<Long, Integer> regular = new TreeMap<>();
+        requested.forEach((productId, quantity) ->
+                (flashSaleService.isActive(productId) ? flashSale : regular).put(productId, quantity));
+
+        // The cart's holds become the order; quantities beyond them must not eat into other carts' holds.
+        SortedSet<Long> failed = new TreeSet<>(inventoryReservationService.convert(order.getUser().getId(), regular, onHand));
+        if (failed.isEmpty()) {
+            failed.addAll(productRepository.decrementStock(regular));
+        }
+        if (failed.isEmpty()) {
+            failed.addAll(flashSaleService.take(flashSale));
+        }
+        if (!failed.isEmpty()) {
+            // Rolls back the decrements that did succeed.
+            throw insufficientStock(failed, requested, products);
+        }
+        // Flash-sale products are evicted by the write-behind flush instead.
+        regular.keySet().forEach(productService::evictStock);
+
+        return cart.getItems().stream().map(cartItem -> {
+            Product product = products.get(cartItem.getProduct().getId());
+            return new OrderItem(null, order, product, cartItem.getQuantity(), product.getPrice(), flashSale.containsKey(product.getId()));
         }).collect(Collectors.toList());
     }
 
+    private InsufficientStockException insufficientStock(Collection<Long> failed, Map<Long, Integer> requested, Map<Long, Product> products) {
+        List<InsufficientStockException.StockShortage> shortages = new ArrayList<>();
+        List<String> lines = new ArrayList<>();
+        for (Long productId : failed) {
+            Product product = products.get(productId);
+            int quantity = requested.get(productId);
+            if (product == null) {
+                shortages.add(new InsufficientStockException.StockShortage(productId, null, quantity, null));
+                lines.add("product " + productId + " no longer exists");
+            } else {
+                int available = flashSaleService.isActive(productId)
+                        ? (int) flashSaleService.remaining(productId)
+                        : inventoryReservationService.availableToSell(productId, product.getQuantity());
+                shortages.add(new InsufficientStockException.StockShortage(productId, product.getName(), quantity, available));
+                lines.add(product.getName() + " (requested " + quantity + ", available " + available + ")");
+            }
+        }
+        return new InsufficientStockException("Not enough stock for: " + String.join("; ", lines), shortages);
+    }
+
     public List<OrderDTO> getAllOrders(){
         return orderMapper.toDTOs(orderRepository.findAll());
     }
 
+    /**
+     * Keyset-paged admin listing, newest first. Costs two queries per page whatever its size:
+     * the filtered page of orders, then their items and products in one join fetch.
+     */
+    @Transactional
+    public CursorPageDTO<OrderDTO> getOrdersByCursor(Order.OrderStatus status, LocalDateTime from, LocalDateTime to, Long userId,
+                                                     String cursor, int size) {
+        List<Order> rows = findPage(status, from, to, userId, cursor, size);
+        boolean hasNext = rows.size() > size;
+        List<Long> ids = rows.stream().limit(size).map(Order::getId).toList();
+
+        List<Order> orders = ids.isEmpty() ? List.of() : orderRepository.findWithItemsByIdIn(ids);
+        List<OrderDTO> content = orderMapper.toDTOs(orders.stream()
+                .sorted(Comparator.comparing(Order::getId).reversed())
+                .toList());
+        return new CursorPageDTO<>(content, content.size(), nextCursor(ids, hasNext), hasNext);
+    }
+
+    /** Same listing without line items: each order carries its item count and total instead. */
+    @Transactional
+    public CursorPageDTO<OrderSummaryDTO> getOrderSummariesByCursor(Order.OrderStatus status, LocalDateTime from, LocalDateTime to, Long userId,
+                                                                    String cursor, int size) {
+        List<Order> rows = findPage(status, from, to, userId, cursor, size);
+        boolean hasNext = rows.size() > size;
+        List<Order> page = rows.stream().limit(size).toList();
+        List<Long> ids = page.stream().map(Order::getId).toList();
+
+        Map<Long, Object[]> totals = ids.isEmpty() ? Map.of() : orderRepository.summarizeItems(ids).stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], Function.identity()));
+        List<OrderSummaryDTO> content = page.stream().map(order -> {
+            Object[] row = totals.get(order.getId());
+            long itemCount = row == null ? 0 : ((Number) row[1]).longValue();
+            BigDecimal total = row == null || row[2] == null ? BigDecimal.ZERO : (BigDecimal) row[2];
+            return new OrderSummaryDTO(order.getId(), order.getUser().getId(), order.getStatus(), order.getCreatedAt(),
+                    order.getAddress(), order.getPhoneNumber(), itemCount, total);
+        }).toList();
+        return new CursorPageDTO<>(content, content.size(), nextCursor(ids, hasNext), hasNext);
+    }
+
+    private List<Order> findPage(Order.OrderStatus status, LocalDateTime from, LocalDateTime to, Long userId, String cursor, int size) {
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                afterId = Long.valueOf(cursor);
+            } catch (NumberFormatException e) {
+                throw new InvalidCursorException("Invalid cursor");
+            }
+        }
+        // One row past the page tells whether there is a next page without a count query.
+        return orderRepository.findBy(orderSpecification.getOrders(status, from, to, userId, afterId),
+                query -> query.sortBy(Sort.by(Sort.Direction.DESC, "id")).limit(size + 1).all());
+    }
+
+    /**
+     * Moves many orders to one status with two statements per chunk of ids: a locking read of
+     * the current statuses and one UPDATE for every order whose status may move to the target.
+     * The lock keeps concurrent status changes out until commit, so exactly the eligible orders
+     * change and only they are taken out of the sales rollups. Returns one result per distinct
+     * id, in request order.
+     */
+    @Transactional
+    public List<OrderStatusUpdateResultDTO> updateOrderStatuses(List<Long> orderIds, Order.OrderStatus status) {
+        if (status == null) {
+            throw new InvalidRequestException("status is required");
+        }
+        if (orderIds == null || orderIds.isEmpty()) {
+            throw new InvalidRequestException("orderIds must not be empty");
+        }
+        if (orderIds.size() > MAX_BULK_STATUS_ORDERS) {
+            throw new InvalidRequestException("At most " + MAX_BULK_STATUS_ORDERS + " orders can be updated at once");
+        }
+        List<Long> ids = orderIds.stream().filter(Objects::nonNull).distinct().toList();
+        Map<Long, OrderStatusUpdateResultDTO> results = new LinkedHashMap<>();
+        for (int start = 0; start < ids.size(); start += STATUS_CHUNK_SIZE) {
+            updateStatusChunk(ids.subList(start, Math.min(start + STATUS_CHUNK_SIZE, ids.size())), status, results);
+        }
+        return ids.stream().map(results::get).toList();
+    }
+
+    private void updateStatusChunk(List<Long> chunk, Order.OrderStatus target, Map<Long, OrderStatusUpdateResultDTO> results) {
+        Map<Long, Order.OrderStatus> current = lockStatuses(chunk);
+        List<Long> eligible = new ArrayList<>();
+        Set<Order.OrderStatus> sources = EnumSet.noneOf(Order.OrderStatus.class);
+        for (Long id : chunk) {
+            Order.OrderStatus status = current.get(id);
+            if (status == null) {
+                results.put(id, new OrderStatusUpdateResultDTO(id, OrderStatusUpdateResultDTO.Outcome.NOT_FOUND, null));
+            } else if (status == target) {
+                results.put(id, new OrderStatusUpdateResultDTO(id, OrderStatusUpdateResultDTO.Outcome.UNCHANGED, status));
+            } else if (!status.canTransitionTo(target)) {
+                results.put(id, new OrderStatusUpdateResultDTO(id, OrderStatusUpdateResultDTO.Outcome.INVALID_TRANSITION, status));
+            } else {
+                eligible.add(id);
+                sources.add(status);
+            }
+        }
+        if (eligible.isEmpty()) {
+            return;
+        }
+
+        int updated = orderRepository.updateStatus(eligible, sources, target);
+        if (updated != eligible.size()) {
+            // Cannot happen while the rows are locked; roll everything back rather than guess.
+            throw new IllegalStateException("Orders changed during the status update, please retry");
+        }
+        eligible.forEach(id -> results.put(id, new OrderStatusUpdateResultDTO(id, OrderStatusUpdateResultDTO.Outcome.UPDATED, target)));
+
+        if (target == Order.OrderStatus.CANCELED) {
+            orderRepository.findWithItemsByIdIn(eligible).forEach(salesRollupService::recordCancellation);
+        }
+    }
+
+    private Map<Long, Order.OrderStatus> lockStatuses(Collection<Long> ids) {
+        Map<Long, Order.OrderStatus> statuses = new HashMap<>();
+        for (Object[] row : orderRepository.findStatusesByIdInForUpdate(ids)) {
+            statuses.put((Long) row[0], (Order.OrderStatus) row[1]);
+        }
+        return statuses;
+    }
+
+    private static String nextCursor(List<Long> ids, boolean hasNext) {
+        return hasNext ? String.valueOf(ids.get(ids.size() - 1)) : null;
+    }
+
     public List<OrderDTO> getUserOrders(Long userId){
         return orderMapper.toDTOs(orderRepository.findByUserId(userId));
     }
 
+    @Transactional
     public OrderDTO updateOrderStatus(Long orderId,Order.OrderStatus status){
-        Order order = orderRepository.findById(orderId)
+        // Locked, so a concurrent bulk update cannot cancel it too and take it out of the rollups twice
+        Order order = orderRepository.findByIdForUpdate(orderId)
                 .orElseThrow(()->new ResourceNotFoundException("Order not found"));
+        // Canceled orders are not counted in the sales rollups.
+        if (status == Order.OrderStatus.CANCELED && order.getStatus() != Order.OrderStatus.CANCELED) {
+            salesRollupService.recordCancellation(order);
+        } else if (status != Order.OrderStatus.CANCELED && order.getStatus() == Order.OrderStatus.CANCELED) {
+            salesRollupService.recordOrder(order);
+        }
         order.setStatus(status);
         Order updatedOrder = orderRepository.save(order);
         return orderMapper.toDTO(updatedOrder);
@@ -0,0 +1,137 @@
+package com.example.demo.service;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.dto.FacetCountDTO;
+import com.example.demo.dto.PriceBucketDTO;
+import com.example.demo.dto.ProductFacetsDTO;
+import com.example.demo.model.Category;
+import com.example.demo.repositories.CategoryRepository;
+import com.example.demo.repositories.ProductRepository;
+import com.example.demo.repositories.ProductRepositoryCustom.FacetRow;
+import com.example.demo.specification.ProductSpecification;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Computes the filter sidebar counts (brand, category, flags, price bucket) for a listing
+ * filter set. Every facet is derived from one grouped aggregation over the filtered products,
+ * or from one pass over the search index matches when a search term is given.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductFacetService {
+    private static final List<BigDecimal> PRICE_BOUNDS = List.of(
+            new BigDecimal("25"), new BigDecimal("50"), new BigDecimal("100"), new BigDecimal("200"));
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductSpecification productSpecification;
+    private final ProductSearchIndex productSearchIndex;
+
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_FACETS,
+            key = "T(com.example.demo.service.ProductFacetService).cacheKey(#search, #categoryId, #minPrice, #maxPrice, #brand, #bestseller, #newArrival)")
+    public ProductFacetsDTO getFacets(String search, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, String brand, Boolean bestseller, Boolean newArrival) {
+        List<FacetRow> rows;
+        if (search != null && !search.isBlank() && productSearchIndex.isReady()) {
+            rows = productSearchIndex.findMatches(search, minPrice, maxPrice, brand, bestseller, newArrival, categoryId).stream()
+                    .map(product -> new FacetRow(product.brand(), product.categoryId(), product.bestseller(), product.newArrival(),
+                            priceBucket(product.price()), 1))
+                    .collect(Collectors.toList());
+        } else {
+            rows = productRepository.countFacets(
+                    productSpecification.getProducts(search, minPrice, maxPrice, brand, bestseller, newArrival, categoryId), PRICE_BOUNDS);
+        }
+        return aggregate(rows);
+    }
+
+    /**
+     * Normalized cache key: search terms are tokenized, brand is lower-cased, prices lose
+     * trailing zeros and a false flag is treated like an absent one, as in ProductSpecification.
+     */
+    public static String cacheKey(String search, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, String brand, Boolean bestseller, Boolean newArrival) {
+        return String.join("|",
+                String.join(" ", ProductSearchIndex.tokenize(search)),
+                categoryId == null ? "" : categoryId.toString(),
+                minPrice == null ? "" : minPrice.stripTrailingZeros().toPlainString(),
+                maxPrice == null ? "" : maxPrice.stripTrailingZeros().toPlainString(),
+                brand == null ? "" : brand.toLowerCase(Locale.ROOT),
+                String.valueOf(Boolean.TRUE.equals(bestseller)),
+                String.valueOf(Boolean.TRUE.equals(newArrival)));
+    }
+
+    private ProductFacetsDTO aggregate(List<FacetRow> rows) {
+        Map<String, FacetCountDTO> brands = new HashMap<>();
+        Map<Long, Long> categoryCounts = new HashMap<>();
+        long[] bucketCounts = new long[PRICE_BOUNDS.size() + 1];
+        long total = 0;
+        long bestsellers = 0;
+        long newArrivals = 0;
+
+        for (FacetRow row : rows) {
+            total += row.count();
+            if (row.bestseller()) {
+                bestsellers += row.count();
+            }
+            if (row.newArrival()) {
+                newArrivals += row.count();
+            }
+            if (row.brand() != null && !row.brand().isBlank()) {
+                // Brand filtering is case-insensitive, so "Dior" and "dior" share one facet entry.
+                FacetCountDTO facet = brands.computeIfAbsent(row.brand().toLowerCase(Locale.ROOT),
+                        key -> new FacetCountDTO(row.brand(), row.brand(), 0));
+                facet.setCount(facet.getCount() + row.count());
+            }
+            if (row.categoryId() != null) {
+                categoryCounts.merge(row.categoryId(), row.count(), Long::sum);
+            }
+            bucketCounts[row.priceBucket()] += row.count();
+        }
+
+        Map<Long, String> categoryNames = categoryCounts.isEmpty() ? Map.of() : categoryRepository.findAllById(categoryCounts.keySet()).stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName));
+        List<FacetCountDTO> categories = categoryCounts.entrySet().stream()
+                .map(entry -> new FacetCountDTO(entry.getKey().toString(), categoryNames.get(entry.getKey()), entry.getValue()))
+                .collect(Collectors.toList());
+
+        List<PriceBucketDTO> priceBuckets = new ArrayList<>();
+        for (int i = 0; i < bucketCounts.length; i++) {
+            BigDecimal min = i == 0 ? null : PRICE_BOUNDS.get(i - 1);
+            BigDecimal max = i == PRICE_BOUNDS.size() ? null : PRICE_BOUNDS.get(i);
+            priceBuckets.add(new PriceBucketDTO(min, max, bucketCounts[i]));
+        }
+
+        ProductFacetsDTO facets = new ProductFacetsDTO();
+        facets.setTotal(total);
+        facets.setBrands(sortByCount(new ArrayList<>(brands.values())));
+        facets.setCategories(sortByCount(categories));
+        facets.setBestsellers(bestsellers);
+        facets.setNewArrivals(newArrivals);
+        facets.setPriceBuckets(priceBuckets);
+        return facets;
+    }
+
+    private static List<FacetCountDTO> sortByCount(List<FacetCountDTO> facets) {
+        facets.sort(Comparator.comparingLong(FacetCountDTO::getCount).reversed()
+                .thenComparing(FacetCountDTO::getLabel, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+        return facets;
+    }
+
+    private static int priceBucket(BigDecimal price) {
+        if (price == null) {
+            return PRICE_BOUNDS.size();
+        }
+        for (int i = 0; i < PRICE_BOUNDS.size(); i++) {
+            if (price.compareTo(PRICE_BOUNDS.get(i)) < 0) {
+                return i;
+            }
+        }
+        return PRICE_BOUNDS.size();
+    }
+}
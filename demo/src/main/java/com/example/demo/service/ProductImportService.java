@@ -0,0 +1,409 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProductImportErrorDTO;
+import com.example.demo.dto.ProductImportJobDTO;
+import com.example.demo.dto.ProductImportRow;
+import com.example.demo.exception.InvalidRequestException;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.Category;
+import com.example.demo.model.Product;
+import com.example.demo.repositories.CategoryRepository;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk product import from CSV or NDJSON. The upload is parsed as a stream, categories are
+ * resolved from a map loaded once per job, and rows are written with JDBC batch inserts in
+ * chunked transactions. A chunk the database rejects is split in halves and retried until the
+ * offending rows stand alone, so a bad row only costs its own entry in the error report. Jobs
+ * run one at a time in the background; their progress is polled by id.
+ */
+@Service
+public class ProductImportService {
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final String INSERT_PRODUCT = "insert into product "
+            + "(name, description, price, quantity, brand, bestseller, new_arrival, category_id) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_IMAGE = "insert into product_images (product_id, images) values (?, ?)";
+    private static final int MAX_VARCHAR_LENGTH = 255;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_RETAINED_JOBS = 20;
+    private static final int MAX_QUEUED_JOBS = 2;
+
+    public enum Format {
+        CSV, NDJSON;
+
+        static Format resolve(String format, String filename) {
+            String value = format;
+            if (value == null || value.isBlank()) {
+                String name = filename == null ? "" : filename.toLowerCase(Locale.ROOT);
+                value = name.substring(name.lastIndexOf('.') + 1);
+            }
+            return switch (value.toLowerCase(Locale.ROOT)) {
+                case "csv" -> CSV;
+                case "ndjson", "jsonl", "json" -> NDJSON;
+                default -> throw new InvalidRequestException("Unsupported import format: " + value + " (expected csv or ndjson)");
+            };
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CategoryRepository categoryRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductService productService;
+    private final TransactionTemplate writeTransaction;
+    private final ObjectReader ndjsonReader;
+    private final ObjectReader csvReader;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${product-import.chunk-size:1000}")
+    private int chunkSize;
+
+    public ProductImportService(JdbcTemplate jdbcTemplate,
+                                CategoryRepository categoryRepository,
+                                ProductSearchIndex productSearchIndex,
+                                ProductService productService,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.categoryRepository = categoryRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.productService = productService;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.ndjsonReader = objectMapper.readerFor(ProductImportRow.class);
+        CsvMapper csvMapper = new CsvMapper();
+        csvMapper.enable(CsvParser.Feature.TRIM_SPACES);
+        csvMapper.enable(CsvParser.Feature.SKIP_EMPTY_LINES);
+        this.csvReader = csvMapper.readerFor(ProductImportRow.class)
+                .with(CsvSchema.emptySchema().withHeader().withArrayElementSeparator("|"));
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_JOBS), runnable -> {
+                    Thread thread = new Thread(runnable, "product-import");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Spools the upload to a temp file (the multipart part is gone once the request ends)
+     * and queues the import. Returns the job in its QUEUED state.
+     */
+    public ProductImportJobDTO startImport(MultipartFile file, String format) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new InvalidRequestException("Import file is empty");
+        }
+        Format importFormat = Format.resolve(format, file.getOriginalFilename());
+        Path upload = Files.createTempFile("product-import-", "." + importFormat.name().toLowerCase(Locale.ROOT));
+        file.transferTo(upload);
+
+        purgeFinishedJobs();
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), importFormat);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, upload));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            Files.deleteIfExists(upload);
+            throw new IllegalStateException("Too many product imports are queued, try again later");
+        }
+        return job.toDTO();
+    }
+
+    public ProductImportJobDTO getJob(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Import job not found with id: " + jobId);
+        }
+        return job.toDTO();
+    }
+
+    private void run(ImportJob job, Path upload) {
+        job.status = "RUNNING";
+        job.startedAt = new Date();
+        long start = System.currentTimeMillis();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(upload), 64 * 1024);
+             MappingIterator<ProductImportRow> rows = reader(job.format).readValues(in)) {
+            CategoryLookup categories = loadCategories();
+            List<Product> chunk = new ArrayList<>(chunkSize);
+            List<Long> chunkRows = new ArrayList<>(chunkSize);
+            long rowNumber = 0;
+            while (true) {
+                ProductImportRow row;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    rowNumber++;
+                    job.processed.incrementAndGet();
+                    row = rows.nextValue();
+                } catch (DatabindException e) {
+                    // A value that does not bind (e.g. "abc" as a price); the iterator resyncs to the next record.
+                    job.rowFailed(rowNumber, e.getOriginalMessage());
+                    continue;
+                }
+
+                String error = validate(row, categories);
+                if (error != null) {
+                    job.rowFailed(rowNumber, error);
+                    continue;
+                }
+                chunk.add(toProduct(row, categories));
+                chunkRows.add(rowNumber);
+                if (chunk.size() == chunkSize) {
+                    writeChunk(job, chunk, chunkRows);
+                }
+            }
+            writeChunk(job, chunk, chunkRows);
+            job.status = "COMPLETED";
+            logger.info("Product import {} finished: {} imported, {} failed in {} ms",
+                    job.id, job.imported.get(), job.failed.get(), System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            // Malformed input (broken CSV quoting, invalid JSON) cannot be resynced; earlier chunks stay imported.
+            job.status = "FAILED";
+            job.failureReason = e.getMessage();
+            logger.error("Product import {} failed after {} rows", job.id, job.processed.get(), e);
+        } finally {
+            job.finishedAt = new Date();
+            try {
+                Files.deleteIfExists(upload);
+            } catch (IOException e) {
+                logger.warn("Could not delete import upload {}", upload, e);
+            }
+        }
+    }
+
+    private ObjectReader reader(Format format) {
+        return format == Format.CSV ? csvReader : ndjsonReader;
+    }
+
+    private void writeChunk(ImportJob job, List<Product> chunk, List<Long> chunkRows) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        write(job, chunk, chunkRows);
+        chunk.clear();
+        chunkRows.clear();
+    }
+
+    /** Writes the rows in one transaction; if that fails, writes each half on its own. */
+    private void write(ImportJob job, List<Product> products, List<Long> rows) {
+        try {
+            writeTransaction.executeWithoutResult(status -> {
+                insertProducts(products);
+                insertImages(products);
+                // Both apply after commit: the index picks up the new rows, caches and ETags are refreshed.
+                productSearchIndex.indexAll(products);
+                productService.evictAllProducts();
+            });
+            job.imported.addAndGet(products.size());
+        } catch (DataAccessException e) {
+            if (products.size() == 1) {
+                job.rowFailed(rows.get(0), e.getMostSpecificCause().getMessage());
+                return;
+            }
+            int half = products.size() / 2;
+            write(job, products.subList(0, half), rows.subList(0, half));
+            write(job, products.subList(half, products.size()), rows.subList(half, rows.size()));
+        }
+    }
+
+    private void insertProducts(List<Product> chunk) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_PRODUCT, new String[] {"id"})) {
+                for (Product product : chunk) {
+                    statement.setString(1, product.getName());
+                    statement.setString(2, product.getDescription());
+                    statement.setBigDecimal(3, product.getPrice());
+                    statement.setInt(4, product.getQuantity());
+                    if (product.getBrand() != null) {
+                        statement.setString(5, product.getBrand());
+                    } else {
+                        statement.setNull(5, Types.VARCHAR);
+                    }
+                    statement.setBoolean(6, product.isBestseller());
+                    statement.setBoolean(7, product.isNewArrival());
+                    statement.setLong(8, product.getCategory().getId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    int index = 0;
+                    while (keys.next() && index < chunk.size()) {
+                        chunk.get(index++).setId(keys.getLong(1));
+                    }
+                    if (index != chunk.size()) {
+                        throw new IllegalStateException("Driver returned " + index + " generated ids for " + chunk.size() + " rows");
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private void insertImages(List<Product> chunk) {
+        List<Object[]> images = new ArrayList<>();
+        for (Product product : chunk) {
+            product.getImages().forEach(image -> images.add(new Object[] {product.getId(), image}));
+        }
+        if (!images.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_IMAGE, images);
+        }
+    }
+
+    private String validate(ProductImportRow row, CategoryLookup categories) {
+        if (row.getName() == null || row.getName().isBlank()) {
+            return "name is required";
+        }
+        if (row.getName().length() > MAX_VARCHAR_LENGTH) {
+            return "name is longer than " + MAX_VARCHAR_LENGTH + " characters";
+        }
+        if (row.getBrand() != null && row.getBrand().length() > MAX_VARCHAR_LENGTH) {
+            return "brand is longer than " + MAX_VARCHAR_LENGTH + " characters";
+        }
+        if (row.getPrice() == null || row.getPrice().signum() < 0) {
+            return "price must be a non-negative number";
+        }
+        if (row.getQuantity() != null && row.getQuantity() < 0) {
+            return "quantity must not be negative";
+        }
+        if (row.getImages() != null && row.getImages().stream().anyMatch(image -> image.length() > MAX_VARCHAR_LENGTH)) {
+            return "image URL is longer than " + MAX_VARCHAR_LENGTH + " characters";
+        }
+        if (categories.find(row) == null) {
+            return row.getCategoryId() != null
+                    ? "unknown categoryId " + row.getCategoryId()
+                    : "unknown category '" + row.getCategory() + "'";
+        }
+        return null;
+    }
+
+    private Product toProduct(ProductImportRow row, CategoryLookup categories) {
+        Product product = new Product();
+        product.setName(row.getName().trim());
+        product.setDescription(row.getDescription());
+        product.setPrice(row.getPrice());
+        product.setQuantity(row.getQuantity() != null ? row.getQuantity() : 0);
+        product.setBrand(row.getBrand() == null || row.getBrand().isBlank() ? null : row.getBrand().trim());
+        product.setBestseller(Boolean.TRUE.equals(row.getBestseller()));
+        product.setNewArrival(Boolean.TRUE.equals(row.getNewArrival()));
+        product.setCategory(categories.find(row));
+        if (row.getImages() != null) {
+            row.getImages().stream()
+                    .filter(image -> image != null && !image.isBlank())
+                    .map(String::trim)
+                    .forEach(product.getImages()::add);
+        }
+        return product;
+    }
+
+    private CategoryLookup loadCategories() {
+        Map<Long, Category> byId = new HashMap<>();
+        Map<String, Category> byName = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            byId.put(category.getId(), category);
+            byName.put(category.getName().trim().toLowerCase(Locale.ROOT), category);
+        }
+        return new CategoryLookup(byId, byName);
+    }
+
+    private void purgeFinishedJobs() {
+        List<ImportJob> finished = jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .sorted(Comparator.comparing((ImportJob job) -> job.finishedAt))
+                .toList();
+        for (int i = 0; i < finished.size() - MAX_RETAINED_JOBS; i++) {
+            jobs.remove(finished.get(i).id);
+        }
+    }
+
+    private record CategoryLookup(Map<Long, Category> byId, Map<String, Category> byName) {
+        Category find(ProductImportRow row) {
+            if (row.getCategoryId() != null) {
+                return byId.get(row.getCategoryId());
+            }
+            return row.getCategory() == null ? null : byName.get(row.getCategory().trim().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private static final class ImportJob {
+        private final String id;
+        private final Format format;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<ProductImportErrorDTO> errors = new ArrayList<>();
+        private volatile String status = "QUEUED";
+        private volatile String failureReason;
+        private volatile Date startedAt;
+        private volatile Date finishedAt;
+
+        private ImportJob(String id, Format format) {
+            this.id = id;
+            this.format = format;
+        }
+
+        private void rowFailed(long row, String message) {
+            failed.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add(new ProductImportErrorDTO(row, message));
+                }
+            }
+        }
+
+        private ProductImportJobDTO toDTO() {
+            List<ProductImportErrorDTO> reported;
+            synchronized (errors) {
+                reported = new ArrayList<>(errors);
+            }
+            return new ProductImportJobDTO(id, status, format.name(), processed.get(), imported.get(),
+                    failed.get(), reported, failed.get() > reported.size(), failureReason, startedAt, finishedAt);
+        }
+    }
+}
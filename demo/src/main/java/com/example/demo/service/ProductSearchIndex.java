@@ -0,0 +1,339 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Category;
+import com.example.demo.model.Product;
+import com.example.demo.repositories.CategoryRepository;
+import com.example.demo.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index over product name, brand, category name and description.
+ * Query tokens are prefix-matched against the indexed terms (so it works per keystroke),
+ * and matches are ranked by field weight and term rarity. The filter attributes of the
+ * listing (price, brand, category, flags) are kept next to each document so a search
+ * never has to go back to the database before it knows which ids to hydrate.
+ */
+@Service
+public class ProductSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]*>");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final float NAME_WEIGHT = 4f;
+    private static final float BRAND_WEIGHT = 3f;
+    private static final float CATEGORY_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate readTransaction;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, IndexedProduct> documents = new HashMap<>();
+    private volatile boolean ready = false;
+
+    public ProductSearchIndex(ProductRepository productRepository,
+                              CategoryRepository categoryRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public record IndexedProduct(Long id, String name, BigDecimal price, String brand, Long categoryId,
+                                 boolean bestseller, boolean newArrival, Map<String, Float> terms) {
+
+        public boolean matches(BigDecimal minPrice, BigDecimal maxPrice, String brand, Boolean bestseller, Boolean newArrival, Long categoryId) {
+            if (minPrice != null && (price == null || price.compareTo(minPrice) < 0)) return false;
+            if (maxPrice != null && (price == null || price.compareTo(maxPrice) > 0)) return false;
+            if (brand != null && !brand.isEmpty() && !brand.equalsIgnoreCase(this.brand)) return false;
+            if (bestseller != null && bestseller && !this.bestseller) return false;
+            if (newArrival != null && newArrival && !this.newArrival) return false;
+            return categoryId == null || categoryId.equals(this.categoryId);
+        }
+    }
+
+    /** A page of ranked product ids plus the total number of matches. */
+    public record SearchResult(List<Long> ids, long total) {
+    }
+
+    private record ScoredProduct(IndexedProduct product, float score) {
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<Long, String> categoryNames = categoryRepository.findAll().stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName));
+        long lastId = 0L;
+        int indexed = 0;
+        while (true) {
+            final long after = lastId;
+            List<IndexedProduct> batch = readTransaction.execute(status ->
+                    productRepository.findByIdGreaterThan(after, PageRequest.of(0, REBUILD_BATCH_SIZE, Sort.by("id"))).stream()
+                            .map(product -> toDocument(product, categoryNames.get(product.getCategory().getId())))
+                            .collect(Collectors.toList()));
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            lock.writeLock().lock();
+            try {
+                batch.forEach(this::upsert);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            indexed += batch.size();
+            lastId = batch.get(batch.size() - 1).id();
+        }
+        ready = true;
+        logger.info("Product search index built with {} products in {} ms", indexed, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Indexes (or re-indexes) a product. The document is captured immediately and applied
+     * once the surrounding transaction commits, so a rolled-back write never becomes searchable.
+     */
+    public void index(Product product) {
+        IndexedProduct document = toDocument(product, product.getCategory() != null ? product.getCategory().getName() : null);
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                upsert(document);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /** Indexes a batch of products under a single write lock, e.g. one bulk-import chunk. */
+    public void indexAll(Collection<Product> products) {
+        List<IndexedProduct> batch = products.stream()
+                .map(product -> toDocument(product, product.getCategory() != null ? product.getCategory().getName() : null))
+                .collect(Collectors.toList());
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                batch.forEach(this::upsert);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void remove(Long productId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeDocument(productId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /** Re-indexes every product of a category, used when the category is renamed. */
+    public void reindexCategory(Long categoryId) {
+        afterCommit(() -> {
+            long lastId = 0L;
+            while (true) {
+                final long after = lastId;
+                List<IndexedProduct> batch = readTransaction.execute(status ->
+                        productRepository.findByCategoryIdAndIdGreaterThan(categoryId, after, PageRequest.of(0, REBUILD_BATCH_SIZE, Sort.by("id"))).stream()
+                                .map(product -> toDocument(product, product.getCategory().getName()))
+                                .collect(Collectors.toList()));
+                if (batch == null || batch.isEmpty()) {
+                    return;
+                }
+                lock.writeLock().lock();
+                try {
+                    batch.forEach(this::upsert);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                lastId = batch.get(batch.size() - 1).id();
+            }
+        });
+    }
+
+    /**
+     * Returns one page of product ids matching every token of the query, filtered by the
+     * listing criteria. Results are ordered by the requested sort (name, price or id) when
+     * one is given, otherwise by relevance.
+     */
+    public SearchResult search(String query, BigDecimal minPrice, BigDecimal maxPrice, String brand, Boolean bestseller, Boolean newArrival, Long categoryId, Pageable pageable) {
+        List<ScoredProduct> matches = collectMatches(query, minPrice, maxPrice, brand, bestseller, newArrival, categoryId);
+        matches.sort(comparator(pageable.getSort()));
+        int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), matches.size()) : 0;
+        int to = pageable.isPaged() ? Math.min(from + pageable.getPageSize(), matches.size()) : matches.size();
+        List<Long> ids = matches.subList(from, to).stream()
+                .map(match -> match.product().id())
+                .collect(Collectors.toList());
+        return new SearchResult(ids, matches.size());
+    }
+
+    /** Returns every indexed product matching the query and the listing criteria, unordered. */
+    public List<IndexedProduct> findMatches(String query, BigDecimal minPrice, BigDecimal maxPrice, String brand, Boolean bestseller, Boolean newArrival, Long categoryId) {
+        return collectMatches(query, minPrice, maxPrice, brand, bestseller, newArrival, categoryId).stream()
+                .map(ScoredProduct::product)
+                .collect(Collectors.toList());
+    }
+
+    private List<ScoredProduct> collectMatches(String query, BigDecimal minPrice, BigDecimal maxPrice, String brand, Boolean bestseller, Boolean newArrival, Long categoryId) {
+        List<String> tokens = tokenize(query).stream().distinct().collect(Collectors.toList());
+        if (tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Float> scores = null;
+            for (String token : tokens) {
+                Map<Long, Float> tokenScores = scoreToken(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+            return scores.entrySet().stream()
+                    .map(entry -> new ScoredProduct(documents.get(entry.getKey()), entry.getValue()))
+                    .filter(match -> match.product().matches(minPrice, maxPrice, brand, bestseller, newArrival, categoryId))
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Float> scoreToken(String token) {
+        int documentCount = Math.max(documents.size(), 1);
+        Map<Long, Float> scores = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Float>> entry : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            Map<Long, Float> postingList = entry.getValue();
+            float idf = (float) Math.log(1 + (double) documentCount / postingList.size());
+            float matchFactor = entry.getKey().length() == token.length() ? 1f : PREFIX_MATCH_FACTOR;
+            postingList.forEach((id, weight) -> scores.merge(id, weight * idf * matchFactor, Math::max));
+        }
+        return scores;
+    }
+
+    private Comparator<ScoredProduct> comparator(Sort sort) {
+        Comparator<ScoredProduct> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<ScoredProduct> byProperty = switch (order.getProperty()) {
+                case "name" -> Comparator.comparing((ScoredProduct match) -> match.product().name(),
+                        Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+                case "price" -> Comparator.comparing((ScoredProduct match) -> match.product().price(),
+                        Comparator.nullsLast(Comparator.naturalOrder()));
+                case "id" -> Comparator.comparing((ScoredProduct match) -> match.product().id());
+                default -> null;
+            };
+            if (byProperty == null) {
+                continue;
+            }
+            if (order.isDescending()) {
+                byProperty = byProperty.reversed();
+            }
+            comparator = comparator == null ? byProperty : comparator.thenComparing(byProperty);
+        }
+        Comparator<ScoredProduct> byRelevance = Comparator.comparing(ScoredProduct::score, Comparator.reverseOrder());
+        byRelevance = byRelevance.thenComparing(match -> match.product().id());
+        return comparator == null ? byRelevance : comparator.thenComparing(byRelevance);
+    }
+
+    private void upsert(IndexedProduct document) {
+        removeDocument(document.id());
+        documents.put(document.id(), document);
+        document.terms().forEach((term, weight) ->
+                postings.computeIfAbsent(term, key -> new HashMap<>()).put(document.id(), weight));
+    }
+
+    private void removeDocument(Long productId) {
+        IndexedProduct previous = documents.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms().keySet()) {
+            Map<Long, Float> postingList = postings.get(term);
+            if (postingList != null) {
+                postingList.remove(productId);
+                if (postingList.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private IndexedProduct toDocument(Product product, String categoryName) {
+        Map<String, Float> terms = new HashMap<>();
+        addTerms(terms, product.getName(), NAME_WEIGHT);
+        addTerms(terms, product.getBrand(), BRAND_WEIGHT);
+        addTerms(terms, categoryName, CATEGORY_WEIGHT);
+        addTerms(terms, product.getDescription() == null ? null : HTML_TAG.matcher(product.getDescription()).replaceAll(" "), DESCRIPTION_WEIGHT);
+        Long categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+        return new IndexedProduct(product.getId(), product.getName(), product.getPrice(), product.getBrand(), categoryId,
+                product.isBestseller(), product.isNewArrival(), terms);
+    }
+
+    private static void addTerms(Map<String, Float> terms, String text, float weight) {
+        // Each field counts once per term, so a long description cannot outweigh the name.
+        new HashSet<>(tokenize(text)).forEach(token -> terms.merge(token, weight, Float::sum));
+    }
+
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(NON_WORD.split(normalized))
+                .filter(token -> !token.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
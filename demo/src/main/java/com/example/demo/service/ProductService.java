@@ -1,29 +1,51 @@
 package com.example.demo.service;
 
+import com.example.demo.config.CacheConfig;
+import com.example.demo.dto.CursorPageDTO;
 import com.example.demo.dto.ProductDTO;
+import com.example.demo.dto.ProductListDTO;
+import com.example.demo.exception.InvalidCursorException;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.mapper.ProductMapper;
 import com.example.demo.model.Category;
 import com.example.demo.model.Product;
 import com.example.demo.repositories.CategoryRepository;
 import com.example.demo.repositories.ProductRepository;
+import com.example.demo.specification.ProductCursor;
 import com.example.demo.specification.ProductSpecification;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService {
+    private static final int EXPORT_CHUNK_SIZE = 500;
 
     @Autowired
     private ProductRepository productRepository;
@@ -40,7 +62,23 @@ public class ProductService {
     @Autowired
     private ProductSpecification productSpecification;
 
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ChangeStampService changeStampService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_LISTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_FACETS, allEntries = true)
+    })
     public ProductDTO createProductWithImages(ProductDTO productDTO, List<MultipartFile> images) throws IOException {
         Product product = productMapper.toEntity(productDTO);
 
@@ -56,10 +94,17 @@ public class ProductService {
         }
 
         Product savedProduct = productRepository.save(product);
+        productSearchIndex.index(savedProduct);
+        changeStampService.bump(ChangeStampService.Resource.PRODUCTS);
         return productMapper.toDTO(savedProduct);
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_LISTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_FACETS, allEntries = true)
+    })
     public ProductDTO updateProductWithImages(Long id, ProductDTO productDTO, List<MultipartFile> images) throws IOException {
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
@@ -85,6 +130,8 @@ public class ProductService {
         }
 
         Product updatedProduct = productRepository.save(existingProduct);
+        productSearchIndex.index(updatedProduct);
+        changeStampService.bump(ChangeStampService.Resource.PRODUCTS);
         return productMapper.toDTO(updatedProduct);
     }
 
@@ -107,15 +154,147 @@ public class ProductService {
     /**
      * UPDATED: Fetches products based on filter criteria using Specification
      * and returns a paginated result.
+     * Text searches are answered by the in-memory search index, which returns a ranked
+     * page of ids that is then hydrated in one query. Until the index has been built the
+     * LIKE fallback in ProductSpecification is used.
      */
     @Transactional(readOnly = true)
     public Page<ProductDTO> getAllProducts(String search, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, String brand, Boolean bestseller, Boolean newArrival, Pageable pageable) {
+        if (search != null && !search.isBlank() && productSearchIndex.isReady()) {
+            ProductSearchIndex.SearchResult result = productSearchIndex.search(search, minPrice, maxPrice, brand, bestseller, newArrival, categoryId, pageable);
+            Map<Long, Product> productsById = productRepository.findAllById(result.ids()).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+            List<ProductDTO> content = result.ids().stream()
+                    .map(productsById::get)
+                    .filter(Objects::nonNull)
+                    .map(productMapper::toDTO)
+                    .collect(Collectors.toList());
+            return new PageImpl<>(content, pageable, result.total());
+        }
         Specification<Product> spec = productSpecification.getProducts(search, minPrice, maxPrice, brand, bestseller, newArrival, categoryId);
         return productRepository.findAll(spec, pageable)
                 .map(productMapper::toDTO);
     }
 
+    /**
+     * Card variant of getAllProducts: same filters, search and paging, but projected straight
+     * into ProductListDTO so no Product entity, description or comment is loaded.
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductListDTO> getProductList(String search, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, String brand, Boolean bestseller, Boolean newArrival, Pageable pageable) {
+        if (search != null && !search.isBlank() && productSearchIndex.isReady()) {
+            ProductSearchIndex.SearchResult result = productSearchIndex.search(search, minPrice, maxPrice, brand, bestseller, newArrival, categoryId, pageable);
+            return new PageImpl<>(productRepository.findProductListByIds(result.ids()), pageable, result.total());
+        }
+        Specification<Product> spec = productSpecification.getProducts(search, minPrice, maxPrice, brand, bestseller, newArrival, categoryId);
+        return productRepository.findProductList(spec, pageable);
+    }
+
+    /**
+     * Keyset variant of getAllProducts: pages by an opaque cursor over (sort key, id) and
+     * fetches one extra row instead of running a COUNT, so every page costs the same.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ProductDTO> getProductsByCursor(String search, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, String brand, Boolean bestseller, Boolean newArrival,
+                                                         String cursor, int size, Sort sort) {
+        Sort.Order order = ProductCursor.resolveOrder(sort);
+        ProductCursor position = cursor == null || cursor.isBlank() ? null : ProductCursor.decode(cursor);
+        if (position != null && !position.matches(order)) {
+            throw new InvalidCursorException("Cursor does not match the requested sort");
+        }
+
+        List<Product> rows;
+        if (search != null && !search.isBlank() && productSearchIndex.isReady()) {
+            rows = seekSearchMatches(search, categoryId, minPrice, maxPrice, brand, bestseller, newArrival, order, position, size + 1);
+        } else {
+            Specification<Product> spec = productSpecification.getProducts(search, minPrice, maxPrice, brand, bestseller, newArrival, categoryId);
+            if (position != null) {
+                spec = spec.and(productSpecification.after(position));
+            }
+            rows = productRepository.findBy(spec, query -> query.sortBy(ProductCursor.toSort(order)).limit(size + 1).all());
+        }
+
+        boolean hasNext = rows.size() > size;
+        List<Product> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            Product last = page.get(page.size() - 1);
+            Object value = switch (order.getProperty()) {
+                case "name" -> last.getName();
+                case "price" -> last.getPrice();
+                default -> null;
+            };
+            nextCursor = new ProductCursor(order.getProperty(), order.getDirection(), last.getId(), value).encode();
+        }
+        List<ProductDTO> content = page.stream().map(productMapper::toDTO).collect(Collectors.toList());
+        return new CursorPageDTO<>(content, content.size(), nextCursor, hasNext);
+    }
+
+    private List<Product> seekSearchMatches(String search, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, String brand, Boolean bestseller, Boolean newArrival,
+                                            Sort.Order order, ProductCursor position, int limit) {
+        Comparator<ProductSearchIndex.IndexedProduct> byKey = switch (order.getProperty()) {
+            case "name" -> Comparator.comparing(ProductSearchIndex.IndexedProduct::name, Comparator.nullsLast(Comparator.<String>naturalOrder()));
+            case "price" -> Comparator.comparing(ProductSearchIndex.IndexedProduct::price, Comparator.nullsLast(Comparator.<BigDecimal>naturalOrder()));
+            default -> (left, right) -> 0;
+        };
+        Comparator<ProductSearchIndex.IndexedProduct> ordering = byKey.thenComparing(ProductSearchIndex.IndexedProduct::id);
+        if (order.isDescending()) {
+            ordering = ordering.reversed();
+        }
+        ProductSearchIndex.IndexedProduct cursorKey = position == null ? null : new ProductSearchIndex.IndexedProduct(position.id(),
+                position.value() instanceof String name ? name : null,
+                position.value() instanceof BigDecimal price ? price : null,
+                null, null, false, false, Map.of());
+
+        final Comparator<ProductSearchIndex.IndexedProduct> comparator = ordering;
+        List<Long> ids = productSearchIndex.findMatches(search, minPrice, maxPrice, brand, bestseller, newArrival, categoryId).stream()
+                .filter(product -> cursorKey == null || comparator.compare(product, cursorKey) > 0)
+                .sorted(comparator)
+                .limit(limit)
+                .map(ProductSearchIndex.IndexedProduct::id)
+                .collect(Collectors.toList());
+        Map<Long, Product> productsById = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return ids.stream().map(productsById::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Writes every product as one JSON line. Rows come from a forward-only cursor and are
+     * mapped in chunks, so the images and comments of a chunk are batch-loaded, and the
+     * persistence context is cleared after each chunk to keep memory flat.
+     */
+    @Transactional(readOnly = true)
+    public long exportProducts(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer();
+        List<Product> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+        long exported = 0;
+        try (Stream<Product> products = productRepository.streamAllByOrderById()) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == EXPORT_CHUNK_SIZE) {
+                    exported += writeChunk(chunk, writer, out);
+                }
+            }
+            exported += writeChunk(chunk, writer, out);
+        }
+        return exported;
+    }
+
+    private int writeChunk(List<Product> chunk, ObjectWriter writer, OutputStream out) throws IOException {
+        for (Product product : chunk) {
+            out.write(writer.writeValueAsBytes(productMapper.toDTO(product)));
+            out.write('\n');
+        }
+        out.flush();
+        int written = chunk.size();
+        chunk.clear();
+        entityManager.clear();
+        return written;
+    }
+
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_LISTS, key = "'bestsellers'")
     public List<ProductDTO> getBestsellers() {
         return productRepository.findByBestsellerIsTrue(Pageable.unpaged()).getContent().stream()
                 .map(productMapper::toDTO)
@@ -123,6 +302,7 @@ public class ProductService {
     }
 
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_LISTS, key = "'newArrivals'")
     public List<ProductDTO> getNewArrivals() {
         return productRepository.findByNewArrivalIsTrue(Pageable.unpaged()).getContent().stream()
                 .map(productMapper::toDTO)
@@ -130,16 +310,60 @@ public class ProductService {
     }
 
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#id")
     public ProductDTO getProductById(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
         return productMapper.toDTO(product);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_LISTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_FACETS, allEntries = true)
+    })
     public void deleteProduct(Long id) {
         if (!productRepository.existsById(id)) {
             throw new ResourceNotFoundException("Product not found with id: " + id);
         }
         productRepository.deleteById(id);
+        productSearchIndex.remove(id);
+        changeStampService.bump(ChangeStampService.Resource.PRODUCTS);
+    }
+
+    /**
+     * Drops the cached view of a product whose comments were changed
+     * outside of this service, and moves the catalog ETag.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_LISTS, allEntries = true)
+    })
+    public void evictProduct(Long id) {
+        changeStampService.bump(ChangeStampService.Resource.PRODUCTS);
+    }
+
+    /**
+     * Drops the cached view of a product after a stock-only change (order placement, flash-sale
+     * flush). The weak catalog ETag stays put: checkouts would otherwise invalidate every client's
+     * copy, and live stock is read from the availability endpoint.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_LISTS, allEntries = true)
+    })
+    public void evictStock(Long id) {
+    }
+
+    /**
+     * Drops every cached product, e.g. after a category rename changes categoryName.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_LISTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_FACETS, allEntries = true)
+    })
+    public void evictAllProducts() {
+        changeStampService.bump(ChangeStampService.Resource.PRODUCTS);
     }
 }
\ No newline at end of file
@@ -1,46 +1,153 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.RecaptchaResponse;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * This service handles the communication with Google's reCAPTCHA API for token verification.
+ * <p>
+ * Calls go through one shared HTTP client (keep-alive connections, connect and read timeouts)
+ * on a small bounded pool, and callers wait at most recaptcha.timeout for the answer, so a slow
+ * verifier costs a login a few seconds instead of a request thread. Concurrent checks of one
+ * token share the call in flight; once it completes the token is spent, and a later check goes
+ * to Google again, which rejects it as "timeout-or-duplicate". Each request must therefore
+ * check its token exactly once. Transport failures and timeouts fail closed.
  */
 @Service
 public class RecaptchaService {
     private static final String RECAPTCHA_VERIFY_URL = "https://www.google.com/recaptcha/api/siteverify";
     private static final Logger logger = LoggerFactory.getLogger(RecaptchaService.class);
-    private final RestTemplate restTemplate = new RestTemplate();
 
-    @Value("${recaptcha.secret}")
-    private String recaptchaSecret;
+    private final RestTemplate restTemplate;
+    private final ThreadPoolExecutor executor;
+    // Verifications in progress by token hash; an entry leaves as soon as its call completes
+    private final Map<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+    private final String recaptchaSecret;
+    private final String verifyUrl;
+    private final Duration timeout;
+
+    public RecaptchaService(@Value("${recaptcha.secret}") String recaptchaSecret,
+                            @Value("${recaptcha.verify-url:" + RECAPTCHA_VERIFY_URL + "}") String verifyUrl,
+                            @Value("${recaptcha.connect-timeout:2s}") Duration connectTimeout,
+                            @Value("${recaptcha.read-timeout:3s}") Duration readTimeout,
+                            @Value("${recaptcha.timeout:4s}") Duration timeout,
+                            @Value("${recaptcha.max-concurrent:8}") int maxConcurrent,
+                            @Value("${recaptcha.queue-capacity:64}") int queueCapacity) {
+        this.recaptchaSecret = recaptchaSecret;
+        this.verifyUrl = verifyUrl;
+        this.timeout = timeout;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "recaptcha-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        // The JDK client keeps its connections alive and reuses them across calls
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(readTimeout);
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
 
     public boolean validateRecaptcha(String token) {
         if (token == null || token.isEmpty()) {
             return false;
         }
 
+        String key = hash(token);
+        CompletableFuture<Boolean> call = new CompletableFuture<>();
+        CompletableFuture<Boolean> result = inFlight.putIfAbsent(key, call);
+        if (result == null) {
+            result = call;
+            try {
+                executor.execute(() -> {
+                    boolean answer;
+                    try {
+                        answer = verify(token);
+                    } catch (RuntimeException e) {
+                        inFlight.remove(key, call);
+                        call.completeExceptionally(e);
+                        return;
+                    }
+                    // Leave the map before completing, so no later check can pick up the spent answer
+                    inFlight.remove(key, call);
+                    call.complete(answer);
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.remove(key, call);
+                logger.error("reCAPTCHA verification rejected, {} verifications queued", executor.getQueue().size());
+                return false;
+            }
+        }
+
+        try {
+            return result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.error("reCAPTCHA verification timed out after {}", timeout);
+            return false;
+        } catch (ExecutionException e) {
+            logger.error("Exception occurred while validating reCAPTCHA token", e.getCause());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean verify(String token) {
         MultiValueMap<String, String> requestMap = new LinkedMultiValueMap<>();
         requestMap.add("secret", recaptchaSecret);
         requestMap.add("response", token);
 
+        RecaptchaResponse response = restTemplate.postForObject(verifyUrl, requestMap, RecaptchaResponse.class);
+        if (response != null && response.isSuccess()) {
+            return true;
+        }
+        logger.error("reCAPTCHA validation failed. Response: {}", response);
+        return false;
+    }
+
+    private static String hash(String token) {
         try {
-            RecaptchaResponse response = restTemplate.postForObject(RECAPTCHA_VERIFY_URL, requestMap, RecaptchaResponse.class);
-            if (response != null && response.isSuccess()) {
-                return true;
-            } else {
-                logger.error("reCAPTCHA validation failed. Response: {}", response);
-                return false;
-            }
-        } catch (Exception e) {
-            logger.error("Exception occurred while validating reCAPTCHA token", e);
-            return false;
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
-}
\ No newline at end of file
+}
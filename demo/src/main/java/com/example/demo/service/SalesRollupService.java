@@ -0,0 +1,282 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.SalesStatsDTO;
+import com.example.demo.exception.InvalidRequestException;
+import com.example.demo.model.Category;
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderItem;
+import com.example.demo.model.Product;
+import com.example.demo.model.SalesDailyProduct;
+import com.example.demo.repositories.CategoryRepository;
+import com.example.demo.repositories.ProductRepository;
+import com.example.demo.repositories.SalesRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the sales_daily and sales_daily_product rollups, so dashboard figures never scan orders.
+ * The deltas of every order and cancellation are applied inside the transaction that commits
+ * it, as atomic upserts, so the rollups are never behind the orders and nothing is lost on a
+ * crash or a redeploy.
+ * <p>
+ * Each day (and each product's day) is split over STRIPES rows, and a transaction writes to one
+ * stripe picked at random, so concurrent checkouts (of one flash-sale product too) rarely wait
+ * on each other's row locks; reads sum the stripes. The upserts run just before commit, day row
+ * first and products in id order, so concurrent checkouts cannot deadlock on them. rebuild()
+ * recomputes any range of days from the orders themselves.
+ */
+@Service
+public class SalesRollupService {
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupService.class);
+
+    private static final int STRIPES = 16;
+
+    private static final String UPSERT_DAY =
+            "insert into sales_daily (order_count, units, revenue, sale_date, stripe) values (?, ?, ?, ?, ?) " +
+            "on conflict (sale_date, stripe) do update set order_count = sales_daily.order_count + excluded.order_count, " +
+            "units = sales_daily.units + excluded.units, revenue = sales_daily.revenue + excluded.revenue";
+    private static final String UPSERT_PRODUCT =
+            "insert into sales_daily_product (order_count, units, revenue, sale_date, stripe, product_id, category_id) values (?, ?, ?, ?, ?, ?, ?) " +
+            "on conflict (sale_date, product_id, stripe) do update set order_count = sales_daily_product.order_count + excluded.order_count, " +
+            "units = sales_daily_product.units + excluded.units, revenue = sales_daily_product.revenue + excluded.revenue";
+
+    // H2 (tests and the load harness) has no ON CONFLICT DO UPDATE; its MERGE ... USING is the atomic equivalent
+    private static final String MERGE_DAY =
+            "merge into sales_daily d using (values (cast(? as bigint), cast(? as bigint), cast(? as decimal(19, 2)), cast(? as date), cast(? as int))) " +
+            "as v (order_count, units, revenue, sale_date, stripe) on d.sale_date = v.sale_date and d.stripe = v.stripe " +
+            "when matched then update set order_count = d.order_count + v.order_count, units = d.units + v.units, revenue = d.revenue + v.revenue " +
+            "when not matched then insert (order_count, units, revenue, sale_date, stripe) values (v.order_count, v.units, v.revenue, v.sale_date, v.stripe)";
+    private static final String MERGE_PRODUCT =
+            "merge into sales_daily_product d using (values (cast(? as bigint), cast(? as bigint), cast(? as decimal(19, 2)), cast(? as date), cast(? as int), cast(? as bigint), cast(? as bigint))) " +
+            "as v (order_count, units, revenue, sale_date, stripe, product_id, category_id) " +
+            "on d.sale_date = v.sale_date and d.product_id = v.product_id and d.stripe = v.stripe " +
+            "when matched then update set order_count = d.order_count + v.order_count, units = d.units + v.units, revenue = d.revenue + v.revenue " +
+            "when not matched then insert (order_count, units, revenue, sale_date, stripe, product_id, category_id) " +
+            "values (v.order_count, v.units, v.revenue, v.sale_date, v.stripe, v.product_id, v.category_id)";
+
+    private static final String DELETE_DAY = "delete from sales_daily where sale_date = ?";
+    private static final String DELETE_DAY_PRODUCTS = "delete from sales_daily_product where sale_date = ?";
+    // Rebuilt days land in stripe 0
+    private static final String REBUILD_DAY =
+            "insert into sales_daily (sale_date, stripe, order_count, units, revenue) " +
+            "select ?, 0, count(distinct o.id), coalesce(sum(i.quantity), 0), coalesce(sum(i.price * i.quantity), 0) " +
+            "from orders o join order_item i on i.order_id = o.id " +
+            "where o.status <> 'CANCELED' and o.created_at >= ? and o.created_at < ? " +
+            "having count(o.id) > 0";
+    private static final String REBUILD_DAY_PRODUCTS =
+            "insert into sales_daily_product (sale_date, stripe, product_id, category_id, order_count, units, revenue) " +
+            "select ?, 0, i.product_id, p.category_id, count(distinct o.id), coalesce(sum(i.quantity), 0), coalesce(sum(i.price * i.quantity), 0) " +
+            "from orders o join order_item i on i.order_id = o.id join product p on p.id = i.product_id " +
+            "where o.status <> 'CANCELED' and o.created_at >= ? and o.created_at < ? " +
+            "group by i.product_id, p.category_id";
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private volatile Boolean postgres;
+
+    public SalesRollupService(SalesRollupRepository salesRollupRepository,
+                              ProductRepository productRepository,
+                              CategoryRepository categoryRepository,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager) {
+        this.salesRollupRepository = salesRollupRepository;
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** Counts a new (or un-canceled) order as part of the surrounding transaction. */
+    public void recordOrder(Order order) {
+        record(order, 1);
+    }
+
+    /** Takes a canceled order back out of the rollups as part of the surrounding transaction. */
+    public void recordCancellation(Order order) {
+        record(order, -1);
+    }
+
+    private void record(Order order, int sign) {
+        LocalDate day = order.getCreatedAt().toLocalDate();
+        Map<Long, Delta> byProduct = new HashMap<>();
+        for (OrderItem item : order.getItems()) {
+            Product product = item.getProduct();
+            long units = item.getQuantity() == null ? 0 : item.getQuantity();
+            BigDecimal revenue = item.getPrice() == null ? BigDecimal.ZERO : item.getPrice().multiply(BigDecimal.valueOf(units));
+            Long categoryId = product.getCategory() == null ? null : product.getCategory().getId();
+            // Several lines of one product still count as one order for it.
+            byProduct.merge(product.getId(), new Delta(0, units, revenue, categoryId), Delta::plus);
+        }
+        Delta dayDelta = byProduct.values().stream()
+                .reduce(new Delta(1, 0, BigDecimal.ZERO, null), (total, line) -> new Delta(total.orderCount(), total.units() + line.units(), total.revenue().add(line.revenue()), null));
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Pending pending = new Pending();
+            pending.add(day, dayDelta.times(sign), byProduct, sign);
+            transactionTemplate.executeWithoutResult(status -> apply(pending));
+            return;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Pending bound = new Pending();
+            TransactionSynchronizationManager.bindResource(this, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    apply(bound);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(SalesRollupService.this);
+                }
+            });
+            pending = bound;
+        }
+        pending.add(day, dayDelta.times(sign), byProduct, sign);
+    }
+
+    /** Writes one transaction's deltas: days first, then products, each in key order. */
+    private void apply(Pending pending) {
+        List<Object[]> days = pending.days.entrySet().stream()
+                .map(entry -> entry.getValue().row(entry.getKey(), pending.stripe))
+                .toList();
+        List<Object[]> products = pending.products.entrySet().stream()
+                .map(entry -> entry.getValue().row(entry.getKey().getSaleDate(), pending.stripe, entry.getKey().getProductId()))
+                .toList();
+        boolean postgres = isPostgres();
+        if (!days.isEmpty()) {
+            jdbcTemplate.batchUpdate(postgres ? UPSERT_DAY : MERGE_DAY, days);
+        }
+        if (!products.isEmpty()) {
+            jdbcTemplate.batchUpdate(postgres ? UPSERT_PRODUCT : MERGE_PRODUCT, products);
+        }
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            result = "PostgreSQL".equalsIgnoreCase(product);
+            postgres = result;
+        }
+        return result;
+    }
+
+    /**
+     * Recomputes the rollups of each day in [from, to] from the orders, one day per transaction.
+     * Orders committed while a day is being rebuilt may be counted twice or not at all, so
+     * backfill past days or run it when checkout is quiet.
+     */
+    public synchronized int rebuild(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new InvalidRequestException("from must not be after to");
+        }
+        int days = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDate saleDate = day;
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(DELETE_DAY_PRODUCTS, saleDate);
+                jdbcTemplate.update(DELETE_DAY, saleDate);
+                jdbcTemplate.update(REBUILD_DAY_PRODUCTS, saleDate, saleDate.atStartOfDay(), saleDate.plusDays(1).atStartOfDay());
+                jdbcTemplate.update(REBUILD_DAY, saleDate, saleDate.atStartOfDay(), saleDate.plusDays(1).atStartOfDay());
+            });
+            days++;
+        }
+        logger.info("Rebuilt sales rollups for {} days from {} to {}", days, from, to);
+        return days;
+    }
+
+    /** Dashboard figures for [from, to], read from the rollups only. */
+    public SalesStatsDTO getStats(LocalDate from, LocalDate to, int top) {
+        if (from.isAfter(to)) {
+            throw new InvalidRequestException("from must not be after to");
+        }
+        List<SalesStatsDTO.Day> days = new ArrayList<>();
+        long orderCount = 0;
+        long units = 0;
+        BigDecimal revenue = BigDecimal.ZERO;
+        for (Object[] row : salesRollupRepository.sumByDay(from, to)) {
+            SalesStatsDTO.Day day = new SalesStatsDTO.Day((LocalDate) row[0], ((Number) row[1]).longValue(),
+                    ((Number) row[2]).longValue(), (BigDecimal) row[3]);
+            days.add(day);
+            orderCount += day.getOrderCount();
+            units += day.getUnits();
+            revenue = revenue.add(day.getRevenue());
+        }
+
+        List<Object[]> productRows = salesRollupRepository.sumByProduct(from, to, PageRequest.of(0, top));
+        Map<Long, String> productNames = productRepository.findAllById(productRows.stream().map(row -> (Long) row[0]).toList()).stream()
+                .collect(Collectors.toMap(Product::getId, Product::getName));
+        List<SalesStatsDTO.ProductSales> topProducts = productRows.stream()
+                .map(row -> new SalesStatsDTO.ProductSales((Long) row[0], productNames.get((Long) row[0]),
+                        ((Number) row[1]).longValue(), ((Number) row[2]).longValue(), (BigDecimal) row[3]))
+                .toList();
+
+        List<Object[]> categoryRows = salesRollupRepository.sumByCategory(from, to);
+        Map<Long, String> categoryNames = categoryRepository.findAllById(categoryRows.stream().map(row -> (Long) row[0]).filter(Objects::nonNull).toList()).stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName));
+        List<SalesStatsDTO.CategorySales> categories = categoryRows.stream()
+                .map(row -> new SalesStatsDTO.CategorySales((Long) row[0], categoryNames.get((Long) row[0]),
+                        ((Number) row[1]).longValue(), (BigDecimal) row[2]))
+                .toList();
+
+        return new SalesStatsDTO(from, to, orderCount, units, revenue, days, topProducts, categories);
+    }
+
+    /** The rollup deltas of one transaction, keyed in the order they are written, and its stripe. */
+    private static final class Pending {
+        private final int stripe = ThreadLocalRandom.current().nextInt(STRIPES);
+        private final Map<LocalDate, Delta> days = new TreeMap<>();
+        private final Map<SalesDailyProduct.Key, Delta> products = new TreeMap<>(
+                Comparator.comparing(SalesDailyProduct.Key::getSaleDate).thenComparing(SalesDailyProduct.Key::getProductId));
+
+        void add(LocalDate day, Delta dayDelta, Map<Long, Delta> byProduct, int sign) {
+            days.merge(day, dayDelta, Delta::plus);
+            byProduct.forEach((productId, delta) -> products.merge(new SalesDailyProduct.Key(day, productId, stripe),
+                    new Delta(1, delta.units(), delta.revenue(), delta.categoryId()).times(sign), Delta::plus));
+        }
+    }
+
+    private record Delta(long orderCount, long units, BigDecimal revenue, Long categoryId) {
+        Delta plus(Delta other) {
+            return new Delta(orderCount + other.orderCount, units + other.units, revenue.add(other.revenue),
+                    categoryId != null ? categoryId : other.categoryId);
+        }
+
+        Delta times(int sign) {
+            return new Delta(orderCount * sign, units * sign, revenue.multiply(BigDecimal.valueOf(sign)), categoryId);
+        }
+
+        Object[] row(LocalDate day, int stripe) {
+            return new Object[] {orderCount, units, revenue, day, stripe};
+        }
+
+        Object[] row(LocalDate day, int stripe, Long productId) {
+            return new Object[] {orderCount, units, revenue, day, stripe, productId, categoryId};
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.demo.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stock counter split over several independently CAS-ed stripes, so concurrent buyers of the
+ * same product mostly touch different cache lines instead of contending on one value.
+ * A taker starts at its home stripe and moves on to the others only when that stripe runs dry.
+ */
+public class StripedStockCounter {
+    // One long per 64-byte cache line
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    public StripedStockCounter(long initial) {
+        this(initial, Runtime.getRuntime().availableProcessors());
+    }
+
+    public StripedStockCounter(long initial, int parallelism) {
+        int stripes = Integer.highestOneBit(Math.max(1, parallelism - 1)) << 1;
+        this.mask = stripes - 1;
+        this.cells = new AtomicLongArray(stripes * PADDING);
+        long share = initial / stripes;
+        for (int i = 0; i < stripes; i++) {
+            cells.set(i * PADDING, share + (i < initial % stripes ? 1 : 0));
+        }
+    }
+
+    /** Takes quantity units if the counter holds that many in total; never goes below zero. */
+    public boolean tryTake(int quantity) {
+        if (quantity <= 0) {
+            return true;
+        }
+        int home = homeStripe();
+        // Fast path: one stripe covers the whole request.
+        for (int i = 0; i <= mask; i++) {
+            int index = ((home + i) & mask) * PADDING;
+            long current;
+            while ((current = cells.get(index)) >= quantity) {
+                if (cells.compareAndSet(index, current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+        // Slow path: gather the remainder from several stripes, give it back if the total falls short.
+        long taken = 0;
+        for (int i = 0; i <= mask && taken < quantity; i++) {
+            int index = ((home + i) & mask) * PADDING;
+            long current;
+            while ((current = cells.get(index)) > 0 && taken < quantity) {
+                long part = Math.min(current, quantity - taken);
+                if (cells.compareAndSet(index, current, current - part)) {
+                    taken += part;
+                }
+            }
+        }
+        if (taken < quantity) {
+            add(taken);
+            return false;
+        }
+        return true;
+    }
+
+    public void add(long quantity) {
+        cells.addAndGet(homeStripe() * PADDING, quantity);
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i <= mask; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    private int homeStripe() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & mask;
+    }
+}
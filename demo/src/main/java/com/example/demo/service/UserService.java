@@ -15,6 +15,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -31,29 +32,32 @@ public class UserService {
     private final OrderRepository orderRepository;
     private final CommentRepository commentRepository;
     private final ReviewRepository reviewRepository;
-    // --- NEW CHANGE FOR RECAPTCHA ---
-    private final RecaptchaService recaptchaService;
-    // ----------------------------------
+    private final ProductService productService;
+    private final ChangeStampService changeStampService;
+    private final CredentialsVersionService credentialsVersionService;
+    // Password hashing waits for the bounded hashing pool, so it runs before the transaction
+    // starts and never holds a pooled connection; the writes then run in a short transaction.
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${frontend.url}")
     private String frontendUrl;
 
     // --- UPDATED METHOD ---
     public User registerUser(User user){
-        // Add reCAPTCHA validation at the beginning
-        if (!recaptchaService.validateRecaptcha(user.getRecaptchaToken())) {
-            throw new BadCredentialsException("reCAPTCHA validation failed. Please try again.");
-        }
-
+        // The reCAPTCHA token is checked once, by AuthController.register, before this runs
         if(userRepository.findByEmail(user.getEmail()).isPresent()) {
             throw new IllegalStateException("Email already taken");
         }
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        user.setRole(User.Role.USER);
-        user.setConfirmationCode(generateConfirmationCode());
-        user.setEmailConfirmation(false);
-        emailService.sendConfirmationCode(user);
-        return userRepository.save(user);
+        String passwordHash = passwordEncoder.encode(user.getPassword());
+        return transactionTemplate.execute(status -> {
+            user.setPassword(passwordHash);
+            user.setRole(User.Role.USER);
+            user.setConfirmationCode(generateConfirmationCode());
+            user.setEmailConfirmation(false);
+            User savedUser = userRepository.save(user);
+            emailService.sendConfirmationCode(savedUser);
+            return savedUser;
+        });
     }
     // ----------------------
 
@@ -66,9 +70,17 @@ public class UserService {
         if(!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
             throw new BadCredentialsException("Current password is incorrect");
         }
-
-        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
-        userRepository.save(user);
+        String passwordHash = passwordEncoder.encode(request.getNewPassword());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            User current = getUserById(user.getId());
+            if (!current.getPassword().equals(user.getPassword())) {
+                throw new IllegalStateException("Password was changed meanwhile, please try again");
+            }
+            current.setPassword(passwordHash);
+            credentialsVersionService.bump(current);
+            userRepository.save(current);
+        });
     }
 
     public void confirmEmail(String email, String confirmationCode){
@@ -107,15 +119,22 @@ public class UserService {
         commentRepository.deleteAll(commentRepository.findByUserId(id));
         reviewRepository.deleteAll(reviewRepository.findByUserId(id));
         userRepository.deleteById(id);
+        credentialsVersionService.revoke(id);
+        // The user's comments were embedded in cached product views
+        productService.evictAllProducts();
+        changeStampService.bump(ChangeStampService.Resource.REVIEWS, ChangeStampService.Resource.COMMENTS);
     }
 
+    @Transactional
     public UserDTO updateUserRole(Long id, User.Role role) {
         User user = getUserById(id);
         user.setRole(role);
+        credentialsVersionService.bump(user);
         User updatedUser = userRepository.save(user);
         return userMapper.toDTO(updatedUser);
     }
 
+    @Transactional
     public void forgotPassword(String email) {
         User user = getUserByEmail(email);
         String token = UUID.randomUUID().toString();
@@ -133,10 +152,17 @@ public class UserService {
         if (user.getResetPasswordTokenExpiry().isBefore(LocalDateTime.now())) {
             throw new BadCredentialsException("Password reset token has expired");
         }
-
-        user.setPassword(passwordEncoder.encode(newPassword));
-        user.setResetPasswordToken(null);
-        user.setResetPasswordTokenExpiry(null);
-        userRepository.save(user);
+        String passwordHash = passwordEncoder.encode(newPassword);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // Read again: the token may have been used while the password was hashed
+            User current = userRepository.findByResetPasswordToken(token)
+                    .orElseThrow(() -> new ResourceNotFoundException("Invalid password reset token"));
+            current.setPassword(passwordHash);
+            current.setResetPasswordToken(null);
+            current.setResetPasswordTokenExpiry(null);
+            credentialsVersionService.bump(current);
+            userRepository.save(current);
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.example.demo.specification;
+
+import com.example.demo.model.Order;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class OrderSpecification {
+
+    /**
+     * Filters for the admin order listing. afterId is the keyset position: pages run newest
+     * first by id, so the next page holds the orders with a smaller id than the last one seen.
+     */
+    public Specification<Order> getOrders(Order.OrderStatus status, LocalDateTime from, LocalDateTime to, Long userId, Long afterId) {
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (status != null) {
+                predicates.add(criteriaBuilder.equal(root.get("status"), status));
+            }
+
+            if (from != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("createdAt"), from));
+            }
+
+            if (to != null) {
+                predicates.add(criteriaBuilder.lessThan(root.get("createdAt"), to));
+            }
+
+            if (userId != null) {
+                predicates.add(criteriaBuilder.equal(root.get("user").get("id"), userId));
+            }
+
+            if (afterId != null) {
+                predicates.add(criteriaBuilder.lessThan(root.get("id"), afterId));
+            }
+
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.specification;
+
+import com.example.demo.exception.InvalidCursorException;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Opaque position for keyset paging over the product listing: the sort key and id of the
+ * last product of the previous page. The sort is encoded too, so a cursor cannot be replayed
+ * against a different ordering.
+ */
+public record ProductCursor(String property, Sort.Direction direction, Long id, Object value) {
+    public static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "name", "price");
+
+    /** Reduces a requested sort to the single supported key, defaulting to id ascending. */
+    public static Sort.Order resolveOrder(Sort sort) {
+        Sort.Order order = null;
+        for (Sort.Order candidate : sort) {
+            if (order != null && !"id".equals(candidate.getProperty())) {
+                throw new InvalidCursorException("Cursor paging supports a single sort key");
+            }
+            if (order == null) {
+                order = candidate;
+            }
+        }
+        if (order == null) {
+            return Sort.Order.asc("id");
+        }
+        if (!SORTABLE_PROPERTIES.contains(order.getProperty())) {
+            throw new InvalidCursorException("Cursor paging cannot sort by " + order.getProperty());
+        }
+        return order;
+    }
+
+    /** The full ordering used by a cursor query: the sort key, then id in the same direction. */
+    public static Sort toSort(Sort.Order order) {
+        Sort sort = Sort.by(order.getDirection(), order.getProperty());
+        return "id".equals(order.getProperty()) ? sort : sort.and(Sort.by(order.getDirection(), "id"));
+    }
+
+    public boolean matches(Sort.Order order) {
+        return property.equals(order.getProperty()) && direction == order.getDirection();
+    }
+
+    public String encode() {
+        String raw = property + "|" + direction.name() + "|" + id + (value == null ? "" : "|" + valueToString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            String property = parts[0];
+            if (!SORTABLE_PROPERTIES.contains(property)) {
+                throw new InvalidCursorException("Invalid cursor");
+            }
+            Sort.Direction direction = Sort.Direction.valueOf(parts[1]);
+            Long id = Long.valueOf(parts[2]);
+            Object value = parts.length < 4 ? null : switch (property) {
+                case "price" -> new BigDecimal(parts[3]);
+                case "name" -> parts[3];
+                default -> null;
+            };
+            return new ProductCursor(property, direction, id, value);
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Invalid cursor", e);
+        }
+    }
+
+    private String valueToString() {
+        return value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.demo.specification;
 
 import com.example.demo.model.Product;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
@@ -54,4 +56,33 @@ public class ProductSpecification {
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
     }
+    /**
+     * Keyset predicate selecting the products that come after the cursor in the order
+     * (sort key, id), both in the cursor's direction. Null sort keys follow the PostgreSQL
+     * default of sorting last ascending and first descending.
+     */
+    public Specification<Product> after(ProductCursor cursor) {
+        return (root, query, criteriaBuilder) -> {
+            boolean ascending = cursor.direction().isAscending();
+            Path<Long> id = root.get("id");
+            Predicate idAfter = ascending ? criteriaBuilder.greaterThan(id, cursor.id()) : criteriaBuilder.lessThan(id, cursor.id());
+
+            return switch (cursor.property()) {
+                case "name" -> keyAfter(criteriaBuilder, root.get("name"), (String) cursor.value(), idAfter, ascending);
+                case "price" -> keyAfter(criteriaBuilder, root.get("price"), (BigDecimal) cursor.value(), idAfter, ascending);
+                default -> idAfter;
+            };
+        };
+    }
+
+    private static <T extends Comparable<? super T>> Predicate keyAfter(CriteriaBuilder criteriaBuilder, Path<T> key, T value, Predicate idAfter, boolean ascending) {
+        if (value == null) {
+            Predicate sameKey = criteriaBuilder.and(criteriaBuilder.isNull(key), idAfter);
+            return ascending ? sameKey : criteriaBuilder.or(sameKey, criteriaBuilder.isNotNull(key));
+        }
+        Predicate beyondKey = ascending ? criteriaBuilder.greaterThan(key, value) : criteriaBuilder.lessThan(key, value);
+        Predicate sameKey = criteriaBuilder.and(criteriaBuilder.equal(key, value), idAfter);
+        Predicate after = criteriaBuilder.or(beyondKey, sameKey);
+        return ascending ? criteriaBuilder.or(after, criteriaBuilder.isNull(key)) : after;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,165 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Category;
+import com.example.demo.model.Comment;
+import com.example.demo.model.Product;
+import com.example.demo.model.User;
+import com.example.demo.repositories.CategoryRepository;
+import com.example.demo.repositories.CommentRepository;
+import com.example.demo.repositories.ProductRepository;
+import com.example.demo.repositories.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the product read paths against N+1 loading: each endpoint renders a page of products
+ * (category, images and comments included) with a fixed number of SQL statements. Collections
+ * and lazy categories are loaded in batches of hibernate.default_batch_fetch_size (50), so a
+ * page of 100 products needs two batches per collection instead of a hundred selects. The
+ * test profile turns scheduling off, so no background job adds to the session factory's count.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductQueryCountTest {
+    private static final int BATCH_SIZE = 50;
+    private static final int LARGE_PAGE = 100;
+    private static final long MAX_STATEMENTS_PER_PAGE = 8;
+    private static final long MAX_STATEMENTS_PER_LARGE_PAGE = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long firstProductId;
+
+    @Test
+    void listingPageUsesBoundedStatements() throws Exception {
+        seedCatalog(BATCH_SIZE);
+        mockMvc.perform(get("/api/products").param("size", String.valueOf(BATCH_SIZE)))
+                .andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS_PER_PAGE);
+    }
+
+    @Test
+    void listingPageLargerThanBatchUsesBoundedStatements() throws Exception {
+        seedCatalog(LARGE_PAGE + 20);
+        mockMvc.perform(get("/api/products").param("size", String.valueOf(LARGE_PAGE)))
+                .andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS_PER_LARGE_PAGE);
+    }
+
+    @Test
+    void cursorPageUsesBoundedStatements() throws Exception {
+        seedCatalog(BATCH_SIZE);
+        mockMvc.perform(get("/api/products").param("cursor", "").param("size", String.valueOf(BATCH_SIZE)))
+                .andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS_PER_PAGE);
+    }
+
+    @Test
+    void cursorPageLargerThanBatchUsesBoundedStatements() throws Exception {
+        seedCatalog(LARGE_PAGE + 20);
+        mockMvc.perform(get("/api/products").param("cursor", "").param("size", String.valueOf(LARGE_PAGE)))
+                .andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS_PER_LARGE_PAGE);
+    }
+
+    @Test
+    void bestsellersUseBoundedStatements() throws Exception {
+        seedCatalog(BATCH_SIZE);
+        mockMvc.perform(get("/api/products/bestsellers")).andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS_PER_PAGE);
+    }
+
+    @Test
+    void bestsellersLargerThanBatchUseBoundedStatements() throws Exception {
+        seedCatalog(LARGE_PAGE + 20);
+        mockMvc.perform(get("/api/products/bestsellers")).andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS_PER_LARGE_PAGE);
+    }
+
+    @Test
+    void newArrivalsUseBoundedStatements() throws Exception {
+        seedCatalog(BATCH_SIZE);
+        mockMvc.perform(get("/api/products/new-arrivals")).andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS_PER_PAGE);
+    }
+
+    @Test
+    void newArrivalsLargerThanBatchUseBoundedStatements() throws Exception {
+        seedCatalog(LARGE_PAGE + 20);
+        mockMvc.perform(get("/api/products/new-arrivals")).andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS_PER_LARGE_PAGE);
+    }
+
+    @Test
+    void productByIdUsesBoundedStatements() throws Exception {
+        seedCatalog(BATCH_SIZE);
+        mockMvc.perform(get("/api/products/{id}", firstProductId)).andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+    }
+
+    private void seedCatalog(int productCount) {
+        commentRepository.deleteAll();
+        productRepository.deleteAll();
+        List<Category> categories = categoryRepository.findAll();
+        User author = userRepository.findAll().get(0);
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < productCount; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setDescription("Description " + i);
+            product.setPrice(BigDecimal.valueOf(10 + i));
+            product.setQuantity(100);
+            product.setBrand("Brand " + (i % 5));
+            product.setBestseller(i % 2 == 0);
+            product.setNewArrival(i % 2 == 1);
+            product.setImages(new ArrayList<>(List.of("a-" + i + ".jpg", "b-" + i + ".jpg")));
+            product.setCategory(categories.get(i % categories.size()));
+            products.add(product);
+        }
+        products = productRepository.saveAll(products);
+        firstProductId = products.get(0).getId();
+
+        List<Comment> comments = new ArrayList<>();
+        for (Product product : products) {
+            comments.add(new Comment(null, "Nice", 5, product, author));
+            comments.add(new Comment(null, "Good", 4, product, author));
+        }
+        commentRepository.saveAll(comments);
+
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.demo.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs RecaptchaService against a local stub of the siteverify endpoint: tokens starting with
+ * "valid" pass once and are rejected as duplicates afterwards, like Google does; "-held" tokens
+ * answer after a short pause, "slow" tokens after the caller's timeout; "broken" tokens get a 500.
+ */
+class RecaptchaServiceTest {
+    private static final Duration HELD_RESPONSE = Duration.ofMillis(200);
+    private static final Duration SLOW_RESPONSE = Duration.ofSeconds(2);
+
+    private final AtomicInteger verifications = new AtomicInteger();
+    private final Set<String> spentTokens = ConcurrentHashMap.newKeySet();
+    private HttpServer verifier;
+    private ExecutorService verifierThreads;
+    private RecaptchaService recaptchaService;
+
+    @BeforeEach
+    void startVerifier() throws IOException {
+        verifier = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        verifierThreads = Executors.newCachedThreadPool();
+        verifier.setExecutor(verifierThreads);
+        verifier.createContext("/siteverify", this::answer);
+        verifier.start();
+
+        String url = "http://127.0.0.1:" + verifier.getAddress().getPort() + "/siteverify";
+        recaptchaService = new RecaptchaService("test", url, Duration.ofSeconds(1), Duration.ofSeconds(1),
+                Duration.ofMillis(500), 4, 16);
+    }
+
+    @AfterEach
+    void stopVerifier() {
+        recaptchaService.shutdown();
+        verifier.stop(0);
+        verifierThreads.shutdownNow();
+    }
+
+    @Test
+    void solvedTokenCannotBeReplayed() {
+        assertThat(recaptchaService.validateRecaptcha("valid-1")).isTrue();
+        assertThat(recaptchaService.validateRecaptcha("valid-1")).isFalse();
+        assertThat(verifications).hasValue(2);
+    }
+
+    @Test
+    void forgedTokenIsRejected() {
+        assertThat(recaptchaService.validateRecaptcha("forged")).isFalse();
+        assertThat(verifications).hasValue(1);
+    }
+
+    @Test
+    void missingTokenNeverReachesTheVerifier() {
+        assertThat(recaptchaService.validateRecaptcha(null)).isFalse();
+        assertThat(recaptchaService.validateRecaptcha("")).isFalse();
+        assertThat(verifications).hasValue(0);
+    }
+
+    @Test
+    void concurrentChecksOfOneTokenShareOneCall() throws Exception {
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return recaptchaService.validateRecaptcha("valid-held");
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(verifications).hasValue(1);
+    }
+
+    @Test
+    void slowVerifierFailsClosedWithinTimeout() {
+        long started = System.nanoTime();
+        assertThat(recaptchaService.validateRecaptcha("slow-1")).isFalse();
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(SLOW_RESPONSE);
+    }
+
+    @Test
+    void verifierErrorFailsClosedEveryTime() {
+        assertThat(recaptchaService.validateRecaptcha("broken-1")).isFalse();
+        assertThat(recaptchaService.validateRecaptcha("broken-1")).isFalse();
+        assertThat(verifications).hasValue(2);
+    }
+
+    private void answer(HttpExchange exchange) throws IOException {
+        verifications.incrementAndGet();
+        String form = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String token = "";
+        for (String pair : form.split("&")) {
+            if (pair.startsWith("response=")) {
+                token = URLDecoder.decode(pair.substring("response=".length()), StandardCharsets.UTF_8);
+            }
+        }
+
+        if (token.startsWith("broken")) {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        }
+        Duration pause = token.startsWith("slow") ? SLOW_RESPONSE : token.endsWith("-held") ? HELD_RESPONSE : Duration.ZERO;
+        try {
+            Thread.sleep(pause.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        boolean success = token.startsWith("valid") && spentTokens.add(token);
+        byte[] body = ("{\"success\":" + success + ",\"hostname\":\"localhost\"}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -19,10 +19,20 @@ export const getAllProducts = (params) => {
     return apiService.get('/products', { params });
 };
 
+// Slim product cards for grids (no description, comments or image list)
+export const getProductList = (params) => {
+    return apiService.get('/products/list', { params });
+};
+
 export const getProductById = (id) => {
     return apiService.get(`/products/${id}`);
 };
 
+// On-hand stock minus the units currently held in carts
+export const getProductAvailability = (id) => {
+    return apiService.get(`/products/${id}/availability`);
+};
+
 export const getHelloMessage = () => {
     return apiService.get('/hello');
 };
@@ -61,9 +71,16 @@ export const addToCart = (productId, quantity) => {
     return apiService.post(`/cart/add?productId=${productId}&quantity=${quantity}`);
 };
 
+// Many cart changes in one request: [{ productId, action: 'ADD' | 'SET' | 'REMOVE', quantity }]
+export const updateCartItems = (operations) => {
+    return apiService.post('/cart/batch', { operations });
+};
+
 
-export const createOrder = (orderData) => {
-    return apiService.post(`/orders?address=${orderData.address}&phoneNumber=${orderData.phoneNumber}`);
+export const createOrder = (orderData, idempotencyKey) => {
+    return apiService.post(`/orders?address=${orderData.address}&phoneNumber=${orderData.phoneNumber}`, null, {
+        headers: idempotencyKey ? { 'Idempotency-Key': idempotencyKey } : {},
+    });
 };
 
 // --- New Function for User Orders ---
@@ -128,10 +145,20 @@ export const getAllOrders = () => {
     return apiService.get('/orders');
 };
 
+// Paginated admin listing; pass the previous page's nextCursor to continue
+export const searchOrders = (params) => {
+    return apiService.get('/orders/search', { params });
+};
+
 export const updateOrderStatus = (orderId, status) => {
     return apiService.put(`/orders/${orderId}/status?status=${status}`);
 };
 
+// Moves many orders to one status; resolves to one { orderId, outcome, status } per order
+export const updateOrderStatuses = (orderIds, status) => {
+    return apiService.put('/orders/status', { orderIds, status });
+};
+
 
 // --- USER MANAGEMENT ADMIN FUNCTIONS ---
 export const getAllUsers = () => {
@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { getCart, createOrder } from '../api/apiService';
 
@@ -8,6 +8,8 @@ const OrderPage = () => {
     const [error, setError] = useState('');
     const [success, setSuccess] = useState('');
     const navigate = useNavigate();
+    // Reused until the server gives a definitive answer, so a retried order is not placed twice
+    const idempotencyKey = useRef(crypto.randomUUID());
 
     useEffect(() => {
         const fetchCart = async () => {
@@ -36,12 +38,19 @@ const OrderPage = () => {
         }
 
         try {
-            await createOrder(formData);
+            await createOrder(formData, idempotencyKey.current);
+            idempotencyKey.current = crypto.randomUUID();
             setSuccess('Order placed successfully! Redirecting to profile...');
             setTimeout(() => {
                 navigate('/profile');
             }, 2000);
         } catch (err) {
+            // No answer, 409 (still processing) or 5xx may mean the order is on its way: keep the key.
+            // Any other 4xx rejected this attempt, so the next submit is a new one.
+            const status = err.response?.status;
+            if (status >= 400 && status < 500 && status !== 409) {
+                idempotencyKey.current = crypto.randomUUID();
+            }
             const errorMessage = err.response?.data?.message || 'Failed to place order.';
             setError(errorMessage);
         }
@@ -1,6 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import { useParams, useNavigate } from 'react-router-dom';
-import { getProductById, addToCart, getBestsellers } from '../api/apiService';
+import { getProductById, getProductAvailability, addToCart, getBestsellers } from '../api/apiService';
 import Loader from '../components/Loader';
 import CommentForm from '../components/CommentForm';
 import ProductSlider from '../components/ProductSlider';
@@ -15,6 +15,7 @@ const ProductDetailPage = () => {
     const [selectedImage, setSelectedImage] = useState(null);
     const [loading, setLoading] = useState(true);
     const [activeTab, setActiveTab] = useState('description');
+    const [available, setAvailable] = useState(null);
     const navigate = useNavigate();
 
     const fetchProduct = () => {
@@ -41,8 +42,16 @@ const ProductDetailPage = () => {
             });
     };
 
+    // Availability changes with other shoppers' carts, so it is fetched separately from the product
+    const fetchAvailability = () => {
+        getProductAvailability(id)
+            .then(response => setAvailable(response.data.available))
+            .catch(err => console.error(`Error fetching availability for product id ${id}:`, err));
+    };
+
     useEffect(() => {
         fetchProduct();
+        fetchAvailability();
     }, [id]);
 
     const handleCommentAdded = () => {
@@ -53,6 +62,7 @@ const ProductDetailPage = () => {
         try {
             await addToCart(product.id, quantity);
             setMessage('Product added to cart successfully!');
+            fetchAvailability();
         } catch (err) {
             setMessage('Failed to add product to cart. Please log in.');
             console.error(err);
@@ -147,6 +157,11 @@ const ProductDetailPage = () => {
                     )}
                     <h1 className="text-4xl font-extrabold text-gray-800 mb-4">{product.name}</h1>
                     <p className="text-3xl text-pink-500 font-bold mb-6">${product.price.toFixed(2)}</p>
+                    {available !== null && (
+                        <p className={`mb-4 font-semibold ${available > 0 ? 'text-green-600' : 'text-red-500'}`}>
+                            {available > 0 ? `${available} available` : 'Out of stock'}
+                        </p>
+                    )}
 
                     <div className="flex items-center space-x-4 mb-6">
                         <label htmlFor="quantity" className="font-bold">Quantity:</label>
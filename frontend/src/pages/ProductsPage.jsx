@@ -1,6 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import { useSearchParams } from 'react-router-dom';
-import { getAllProducts, getAllCategories } from '../api/apiService';
+import { getProductList, getAllCategories } from '../api/apiService';
 import ProductCard from '../components/ProductCard';
 import Loader from '../components/Loader';
 
@@ -43,7 +43,7 @@ const ProductsPage = () => {
                 if (filters.maxPrice) params.append('maxPrice', filters.maxPrice);
                 params.append('sort', filters.sort); // Always include sort
 
-                const response = await getAllProducts(params);
+                const response = await getProductList(params);
                 const productsArray = response.data.content || [];
                 setProducts(productsArray);
             } catch (err) {
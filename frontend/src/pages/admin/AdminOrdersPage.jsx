@@ -1,5 +1,5 @@
 import React, { useState, useEffect } from 'react';
-import { getAllOrders, updateOrderStatus } from '../../api/apiService';
+import { searchOrders, updateOrderStatus } from '../../api/apiService';
 import Loader from '../../components/Loader';
 
 const AdminOrdersPage = () => {
@@ -7,13 +7,20 @@ const AdminOrdersPage = () => {
     const [error, setError] = useState('');
     const [success, setSuccess] = useState('');
     const [loading, setLoading] = useState(true);
+    const [statusFilter, setStatusFilter] = useState('');
+    const [nextCursor, setNextCursor] = useState(null);
 
-    const fetchOrders = async () => {
+    const fetchOrders = async (cursor = null) => {
         try {
-            const response = await getAllOrders();
-            // The fix is to use response.data, which contains the array of orders
-            const ordersArray = Array.isArray(response.data) ? response.data : [];
-            setOrders(ordersArray);
+            const response = await searchOrders({
+                view: 'summary',
+                size: 50,
+                ...(statusFilter && { status: statusFilter }),
+                ...(cursor && { cursor }),
+            });
+            const page = response.data;
+            setOrders(cursor ? [...orders, ...page.content] : page.content);
+            setNextCursor(page.nextCursor);
         } catch (err) {
             setError('Failed to fetch orders. Please try again.');
             console.error(err);
@@ -24,7 +31,7 @@ const AdminOrdersPage = () => {
 
     useEffect(() => {
         fetchOrders();
-    }, []);
+    }, [statusFilter]);
 
     const handleStatusChange = async (orderId, newStatus) => {
         setError('');
@@ -48,6 +55,19 @@ const AdminOrdersPage = () => {
             <h1 className="text-3xl font-bold mb-6">Manage Orders</h1>
             {error && <p className="text-red-500 bg-red-100 p-3 rounded-md mb-4">{error}</p>}
             {success && <p className="text-green-500 bg-green-100 p-3 rounded-md mb-4">{success}</p>}
+            <div className="mb-4">
+                <select
+                    value={statusFilter}
+                    onChange={(e) => setStatusFilter(e.target.value)}
+                    className="p-2 border rounded-md"
+                >
+                    <option value="">All statuses</option>
+                    <option value="PREPARING">Preparing</option>
+                    <option value="DELIVERING">Delivering</option>
+                    <option value="DELIVERED">Delivered</option>
+                    <option value="CANCELED">Canceled</option>
+                </select>
+            </div>
             <div className="overflow-x-auto bg-white p-4 rounded-lg shadow">
                 <table className="min-w-full bg-white">
                     <thead>
@@ -56,6 +76,8 @@ const AdminOrdersPage = () => {
                         <th className="py-2 px-4 border-b text-left">Customer</th>
                         <th className="py-2 px-4 border-b text-left">Status</th>
                         <th className="py-2 px-4 border-b text-left">Date</th>
+                        <th className="py-2 px-4 border-b text-left">Items</th>
+                        <th className="py-2 px-4 border-b text-left">Total</th>
                         <th className="py-2 px-4 border-b text-left">Actions</th>
                     </tr>
                     </thead>
@@ -63,10 +85,11 @@ const AdminOrdersPage = () => {
                     {orders.map(order => (
                         <tr key={order.id}>
                             <td className="py-2 px-4 border-b">{order.id}</td>
-                            {/* Assuming the user object is directly on the order */}
-                            <td className="py-2 px-4 border-b">{order.user ? order.user.username : 'N/A'}</td>
+                            <td className="py-2 px-4 border-b">User #{order.userId}</td>
                             <td className="py-2 px-4 border-b">{order.status}</td>
                             <td className="py-2 px-4 border-b">{new Date(order.createdAt).toLocaleDateString()}</td>
+                            <td className="py-2 px-4 border-b">{order.itemCount}</td>
+                            <td className="py-2 px-4 border-b">${Number(order.total).toFixed(2)}</td>
                             <td className="py-2 px-4 border-b">
                                 <select
                                     defaultValue={order.status}
@@ -83,6 +106,14 @@ const AdminOrdersPage = () => {
                     ))}
                     </tbody>
                 </table>
+                {nextCursor && (
+                    <button
+                        onClick={() => fetchOrders(nextCursor)}
+                        className="mt-4 px-4 py-2 bg-gray-200 rounded-md hover:bg-gray-300"
+                    >
+                        Load more
+                    </button>
+                )}
             </div>
         </div>
     );